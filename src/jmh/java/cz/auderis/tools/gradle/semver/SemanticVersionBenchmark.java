@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of core {@link SemanticVersion} operations. Every benchmark method processes
+ * the whole corpus of {@link #CORPUS_SIZE} versions, reported times are per single version.
+ * <p>
+ * Run with {@code gradle jmh}, optionally restricted by {@code -PjmhInclude=<regexp>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SemanticVersionBenchmark {
+
+    static final int CORPUS_SIZE = 256;
+
+    @Param({ "release", "snapshot", "prerelease-chain", "timestamp" })
+    public String corpus;
+
+    String[] specifications;
+    SemanticVersion[] versions;
+    SemanticVersion[] shuffledVersions;
+
+    @Setup
+    public void prepareCorpus() {
+        final Random random = new Random(20170511L);
+        specifications = new String[CORPUS_SIZE];
+        versions = new SemanticVersion[CORPUS_SIZE];
+        shuffledVersions = new SemanticVersion[CORPUS_SIZE];
+        for (int i = 0; i < CORPUS_SIZE; ++i) {
+            specifications[i] = createSpecification(corpus, random);
+            versions[i] = SemanticVersion.is(specifications[i]);
+        }
+        for (int i = 0; i < CORPUS_SIZE; ++i) {
+            shuffledVersions[i] = versions[random.nextInt(CORPUS_SIZE)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void isValid(Blackhole sink) {
+        for (final String spec : specifications) {
+            sink.consume(SemanticVersion.isValid(spec));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void is(Blackhole sink) {
+        for (final String spec : specifications) {
+            sink.consume(SemanticVersion.is(spec));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void parse(Blackhole sink) {
+        for (final String spec : specifications) {
+            sink.consume(SemanticVersion.parse(spec));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void compareTo(Blackhole sink) {
+        for (int i = 0; i < CORPUS_SIZE; ++i) {
+            sink.consume(versions[i].compareTo(shuffledVersions[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void orderByNormal(Blackhole sink) {
+        final SemanticVersion.OrderBy order = SemanticVersion.OrderBy.NORMAL;
+        for (int i = 0; i < CORPUS_SIZE; ++i) {
+            sink.consume(order.compare(versions[i], shuffledVersions[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void toStringCached(Blackhole sink) {
+        for (final SemanticVersion version : versions) {
+            sink.consume(version.toString());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void parseAndToString(Blackhole sink) {
+        for (final String spec : specifications) {
+            sink.consume(SemanticVersion.is(spec).toString());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void hashCodeOf(Blackhole sink) {
+        for (final SemanticVersion version : versions) {
+            sink.consume(version.hashCode());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void withIdentifierChain(Blackhole sink) {
+        for (final SemanticVersion version : versions) {
+            final SemanticVersion derived = version
+                    .withPreReleaseIdentifier("feature-x")
+                    .withPreReleaseIdentifier("ci")
+                    .withPreReleaseIdentifier("4711")
+                    .withBuildMetadataIdentifier("sha")
+                    .withBuildMetadataIdentifier("a1b2c3d")
+                    .withBuildMetadataIdentifier("20170511");
+            sink.consume(derived);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public void builderChain(Blackhole sink) {
+        for (final SemanticVersion version : versions) {
+            final SemanticVersion derived = version.toBuilder()
+                    .withPreReleaseIdentifier("feature-x")
+                    .withPreReleaseIdentifier("ci")
+                    .withPreReleaseIdentifier("4711")
+                    .withBuildMetadataIdentifier("sha")
+                    .withBuildMetadataIdentifier("a1b2c3d")
+                    .withBuildMetadataIdentifier("20170511")
+                    .build();
+            sink.consume(derived);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public SemanticVersion[] sortByComparator() {
+        final SemanticVersion[] sorted = shuffledVersions.clone();
+        Arrays.sort(sorted, SemanticVersion.OrderBy.NORMAL);
+        return sorted;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUS_SIZE)
+    public SemanticVersion[] sortByRadix() {
+        final SemanticVersion[] sorted = shuffledVersions.clone();
+        SemanticVersion.sort(sorted);
+        return sorted;
+    }
+
+    static String createSpecification(String corpus, Random random) {
+        final StringBuilder spec = new StringBuilder(64);
+        spec.append(random.nextInt(5) + 1);
+        spec.append('.').append(random.nextInt(20));
+        spec.append('.').append(random.nextInt(50));
+        switch (corpus) {
+            case "release":
+                break;
+            case "snapshot":
+                spec.append("-SNAPSHOT");
+                break;
+            case "prerelease-chain":
+                spec.append("-alpha.").append(random.nextInt(5));
+                spec.append(".feature-").append((char) ('a' + random.nextInt(26)));
+                spec.append(".build.").append(random.nextInt(10000));
+                spec.append(".rc-").append(random.nextInt(3));
+                spec.append("+sha.").append(Integer.toHexString(random.nextInt()));
+                break;
+            case "timestamp":
+                // Maven-like unique snapshot stamp, e.g. 1.2.3-20170511.121349.17
+                spec.append("-2017").append(10 + random.nextInt(3)).append(10 + random.nextInt(18));
+                spec.append('.').append(100000 + random.nextInt(140000));
+                spec.append('.').append(1 + random.nextInt(100));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown corpus " + corpus);
+        }
+        return spec.toString();
+    }
+
+}
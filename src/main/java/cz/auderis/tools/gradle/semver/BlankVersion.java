@@ -5,8 +5,12 @@ import org.gradle.api.plugins.ExtensionContainer;
 
 import java.io.File;
 import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
 import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
 
 /**
  * Instance of this class is set as an initial value to {@code project.version}. Its {@link #toString()}
@@ -21,13 +25,19 @@ import java.net.URL;
  * <pre>
  *   project.version.from('version.txt')
  * </pre>
+ * When {@link SemanticVersionExtension#isLazyVersion() lazy version} is enabled, the version
+ * is not resolved until it is requested, see {@link LazyVersion}.
+ * Versions are resolved once per build; other projects of the build that use the same source
+ * obtain the same version instance without reading the source again.
  *
  * @author Boleslav Bobcik
  * @version 1.0.0
  */
-public class BlankVersion {
+public class BlankVersion implements Serializable {
 
-    private final WeakReference<Project> ownerRef;
+    private static final long serialVersionUID = 1L;
+
+    private final transient WeakReference<Project> ownerRef;
 
     BlankVersion(Project project) {
         this.ownerRef = new WeakReference<Project>(project);
@@ -38,17 +48,29 @@ public class BlankVersion {
         return Project.DEFAULT_VERSION;
     }
 
+    /**
+     * Blank version is serialized as its rendered text, so that serialized state (e.g. task inputs)
+     * does not refer to the project
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return Project.DEFAULT_VERSION;
+    }
+
     /**
      * Replaces reference in {@code project.version} from itself to a concrete version instance
      *
      * @param versionSpecification semantic version text representation
      */
-    public void is(String versionSpecification) {
-        SemanticVersion version = getOverride();
-        if (null == version) {
-            version = SemanticVersion.is(versionSpecification);
+    public void is(final String versionSpecification) {
+        if (null == versionSpecification) {
+            throw new NullPointerException("Semantic version is not specified");
         }
-        getOwner().setVersion(version);
+        resolveVersion(new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return getSharedService().parse(versionSpecification);
+            }
+        });
     }
 
     /**
@@ -67,16 +89,35 @@ public class BlankVersion {
 
     /**
      * Replaces reference in {@code project.version} from itself to a concrete version instance
-     * read from the given file
+     * read from the given file. When {@link SemanticVersionExtension#isWatchVersionFiles() watching}
+     * is enabled (by default in continuous builds), the version is kept in memory by a {@link VersionFileWatcher}.
      *
      * @param versionHolder file that contains semantic version specification
      */
     public void from(File versionHolder) {
-        SemanticVersion version = getOverride();
-        if (null == version) {
-            version = SemanticVersion.from(versionHolder);
+        if (null == versionHolder) {
+            throw new NullPointerException("Version holder file not specified");
         }
-        getOwner().setVersion(version);
+        from(versionHolder.toPath());
+    }
+
+    /**
+     * Replaces reference in {@code project.version} from itself to a concrete version instance
+     * read from the given file. When {@link SemanticVersionExtension#isWatchVersionFiles() watching}
+     * is enabled (by default in continuous builds), the version is kept in memory by a {@link VersionFileWatcher}.
+     *
+     * @param versionHolder file that contains semantic version specification
+     */
+    public void from(final Path versionHolder) {
+        if (null == versionHolder) {
+            throw new NullPointerException("Version holder file not specified");
+        }
+        resolveVersion(new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return getSharedService().fromFile(versionHolder, isWatchVersionFiles());
+            }
+        });
     }
 
     /**
@@ -85,12 +126,16 @@ public class BlankVersion {
      *
      * @param url URL of a semantic version specification
      */
-    public void from(URL url) {
-        SemanticVersion version = getOverride();
-        if (null == version) {
-            version = SemanticVersion.from(url);
+    public void from(final URL url) {
+        if (null == url) {
+            throw new NullPointerException("Version specification URL not specified");
         }
-        getOwner().setVersion(version);
+        resolveVersion(new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return getSharedService().fromUrl(url, getUrlLoader());
+            }
+        });
     }
 
     /**
@@ -99,12 +144,57 @@ public class BlankVersion {
      *
      * @param source source location where a semantic version can be read
      */
-    public void from(String source) {
-        SemanticVersion version = getOverride();
-        if (null == version) {
-            version = SemanticVersion.from(source);
+    public void from(final String source) {
+        if (null == source) {
+            throw new NullPointerException("Version specification source not defined");
+        }
+        resolveVersion(new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return getSharedService().fromSource(source, getUrlLoader());
+            }
+        });
+    }
+
+    /**
+     * Replaces reference in {@code project.version} from itself to a concrete version instance
+     * obtained from the first valid of the provided sources, see {@link SemanticVersion#from(Object...)}
+     *
+     * @param sources source locations in the order of priority
+     */
+    public void fromFirstOf(final Object... sources) {
+        if (null == sources) {
+            throw new NullPointerException("Version sources are not specified");
+        }
+        resolveVersion(new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                final SemanticVersionExtension ext = getExtension();
+                final long hedgeDelay = (null != ext) ? ext.getSourceHedgeDelay() : VersionSourceResolver.DEFAULT_HEDGE_DELAY;
+                return getSharedService().fromFirstOf(sources, getUrlLoader(), hedgeDelay);
+            }
+        });
+    }
+
+    /**
+     * Sets {@code project.version} to the resolved version, or to a {@link LazyVersion} when
+     * lazy version is enabled; the version override takes precedence in both cases
+     */
+    private void resolveVersion(final Callable<SemanticVersion> resolution) {
+        final Callable<SemanticVersion> versionResolution = new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() throws Exception {
+                final SemanticVersion override = getOverride();
+                return (null != override) ? override : resolution.call();
+            }
+        };
+        final Project project = getOwner();
+        if (isLazyVersion()) {
+            project.setVersion(new LazyVersion(versionResolution));
+            project.getLogger().debug("Version of {} set to lazy semantic version", project);
+        } else {
+            project.setVersion(VersionProvider.invoke(versionResolution));
         }
-        getOwner().setVersion(version);
     }
 
     private Project getOwner() {
@@ -116,10 +206,33 @@ public class BlankVersion {
     }
 
     private SemanticVersion getOverride() {
+        final SemanticVersionExtension ext = getExtension();
+        return (null != ext) ? ext.getVersionOverride() : null;
+    }
+
+    private boolean isLazyVersion() {
+        final SemanticVersionExtension ext = getExtension();
+        return (null != ext) && ext.isLazyVersion();
+    }
+
+    private boolean isWatchVersionFiles() {
+        final SemanticVersionExtension ext = getExtension();
+        return (null != ext) && ext.isWatchVersionFiles();
+    }
+
+    private SharedVersionService getSharedService() {
+        return SharedVersionService.forBuild(getOwner().getGradle());
+    }
+
+    private VersionUrlLoader getUrlLoader() {
+        final SemanticVersionExtension ext = getExtension();
+        return (null != ext) ? ext.getUrlLoader() : VersionUrlLoader.UNCACHED;
+    }
+
+    private SemanticVersionExtension getExtension() {
         final Project project = getOwner();
         final ExtensionContainer extensions = project.getExtensions();
-        final SemanticVersionExtension ext = extensions.findByType(SemanticVersionExtension.class);
-        return (null != ext) ? ext.getVersionOverride() : null;
+        return extensions.findByType(SemanticVersionExtension.class);
     }
 
 }
@@ -16,13 +16,16 @@
 
 package cz.auderis.tools.gradle.semver;
 
+import java.io.Serializable;
 import java.util.Map;
 
 /**
  * Defines a source for version overrides based on system environment. This is useful for
  * various CI products.
  */
-class EnvironmentVersionOverride implements VersionOverrideSource {
+class EnvironmentVersionOverride implements VersionOverrideSource, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     final String envName;
 
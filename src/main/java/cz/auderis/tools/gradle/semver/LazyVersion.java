@@ -0,0 +1,238 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.Transformer;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Project version that is resolved when it is rendered or requested for the first time. It is used
+ * by {@link BlankVersion} when {@link SemanticVersionExtension#isLazyVersion() lazy version} is enabled,
+ * so that builds which never read {@code project.version} do not read version files or URLs at all.
+ * <p>
+ * Read-only methods of {@link SemanticVersion}, e.g. {@code project.version.snapshot},
+ * {@code project.version.preReleaseIdentifiers} or {@code project.version.incrementMinorVersion()},
+ * resolve the version and delegate to it; {@link #equals(Object)} and {@link #compareTo(SemanticVersion)}
+ * compare the resolved version. Derived providers, e.g. {@code project.version.snapshotProvider} or
+ * {@code project.version.majorVersionProvider}, do not resolve the version until their values are requested.
+ * <p>
+ * Lazy version is not a {@code SemanticVersion}: code that needs the version object itself (type checks,
+ * method parameters, Groovy relational operators) has to use {@link #get()}.
+ */
+public final class LazyVersion extends VersionProvider<SemanticVersion> {
+
+    private static final long serialVersionUID = 1L;
+
+    LazyVersion(Callable<SemanticVersion> resolution) {
+        super(resolution);
+    }
+
+    public int getMajorVersion() {
+        return get().getMajorVersion();
+    }
+
+    public int getMinorVersion() {
+        return get().getMinorVersion();
+    }
+
+    public int getPatchRevision() {
+        return get().getPatchRevision();
+    }
+
+    @Deprecated
+    public int getMajor() {
+        return get().getMajor();
+    }
+
+    @Deprecated
+    public int getMinor() {
+        return get().getMinor();
+    }
+
+    @Deprecated
+    public int getPatch() {
+        return get().getPatch();
+    }
+
+    @Deprecated
+    public int getPatchLevel() {
+        return get().getPatchLevel();
+    }
+
+    public SemanticVersion incrementMajorVersion() {
+        return get().incrementMajorVersion();
+    }
+
+    public SemanticVersion incrementMinorVersion() {
+        return get().incrementMinorVersion();
+    }
+
+    public SemanticVersion incrementPatchLevel() {
+        return get().incrementPatchLevel();
+    }
+
+    public boolean isPrerelease() {
+        return get().isPreRelease();
+    }
+
+    public boolean isPreRelease() {
+        return get().isPreRelease();
+    }
+
+    public boolean isStable() {
+        return get().isStable();
+    }
+
+    public boolean isSnapshot() {
+        return get().isSnapshot();
+    }
+
+    public List<String> getPreReleaseIdentifiers() {
+        return get().getPreReleaseIdentifiers();
+    }
+
+    public boolean hasPreReleaseIdentifier(String id) {
+        return get().hasPreReleaseIdentifier(id);
+    }
+
+    public SemanticVersion withPreReleaseIdentifier(String id) {
+        return get().withPreReleaseIdentifier(id);
+    }
+
+    public SemanticVersion withOptionalPreReleaseIdentifier(String id) {
+        return get().withOptionalPreReleaseIdentifier(id);
+    }
+
+    public SemanticVersion withPreReleaseIdentifiers(String... ids) {
+        return get().withPreReleaseIdentifiers(ids);
+    }
+
+    public SemanticVersion withPreReleaseIdentifiersFrom(SemanticVersion referenceVersion) {
+        return get().withPreReleaseIdentifiersFrom(referenceVersion);
+    }
+
+    public SemanticVersion stripPreReleaseIdentifiers() {
+        return get().stripPreReleaseIdentifiers();
+    }
+
+    public List<String> getBuildMetadataIdentifiers() {
+        return get().getBuildMetadataIdentifiers();
+    }
+
+    public boolean hasBuildMetadataIdentifier(String id) {
+        return get().hasBuildMetadataIdentifier(id);
+    }
+
+    public SemanticVersion withBuildMetadataIdentifier(String id) {
+        return get().withBuildMetadataIdentifier(id);
+    }
+
+    public SemanticVersion withOptionalBuildMetadataIdentifier(String id) {
+        return get().withOptionalBuildMetadataIdentifier(id);
+    }
+
+    public SemanticVersion withBuildMetadataIdentifiers(String... ids) {
+        return get().withBuildMetadataIdentifiers(ids);
+    }
+
+    public SemanticVersion withBuildMetadataIdentifiersFrom(SemanticVersion referenceVersion) {
+        return get().withBuildMetadataIdentifiersFrom(referenceVersion);
+    }
+
+    public SemanticVersion stripBuildMetadataIdentifiers() {
+        return get().stripBuildMetadataIdentifiers();
+    }
+
+    public SemanticVersion stripAllIdentifiers() {
+        return get().stripAllIdentifiers();
+    }
+
+    public SemanticVersion.Builder toBuilder() {
+        return get().toBuilder();
+    }
+
+    public byte[] toBytes() {
+        return get().toBytes();
+    }
+
+    public int compareTo(SemanticVersion other) {
+        return get().compareTo(other);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (obj instanceof LazyVersion) {
+            return get().equals(((LazyVersion) obj).get());
+        }
+        return get().equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return get().hashCode();
+    }
+
+    public VersionProvider<Boolean> getSnapshotProvider() {
+        return map(new Transformer<Boolean, SemanticVersion>() {
+            @Override
+            public Boolean transform(SemanticVersion version) {
+                return version.isSnapshot();
+            }
+        });
+    }
+
+    public VersionProvider<Boolean> getStableProvider() {
+        return map(new Transformer<Boolean, SemanticVersion>() {
+            @Override
+            public Boolean transform(SemanticVersion version) {
+                return version.isStable();
+            }
+        });
+    }
+
+    public VersionProvider<Integer> getMajorVersionProvider() {
+        return map(new Transformer<Integer, SemanticVersion>() {
+            @Override
+            public Integer transform(SemanticVersion version) {
+                return version.getMajorVersion();
+            }
+        });
+    }
+
+    public VersionProvider<Integer> getMinorVersionProvider() {
+        return map(new Transformer<Integer, SemanticVersion>() {
+            @Override
+            public Integer transform(SemanticVersion version) {
+                return version.getMinorVersion();
+            }
+        });
+    }
+
+    public VersionProvider<Integer> getPatchRevisionProvider() {
+        return map(new Transformer<Integer, SemanticVersion>() {
+            @Override
+            public Integer transform(SemanticVersion version) {
+                return version.getPatchRevision();
+            }
+        });
+    }
+
+}
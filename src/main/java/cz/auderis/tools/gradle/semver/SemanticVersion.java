@@ -21,18 +21,30 @@ import org.gradle.api.InvalidUserDataException;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.ObjectStreamField;
+import java.io.Reader;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -100,28 +112,195 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
 
     public static final String SNAPSHOT_ID = "SNAPSHOT";
 
+    // Empty lines and comments in version holder files
+    private static final Pattern IGNORED_LINE_PATTERN = Pattern.compile("^\\s*(?:(?:#|//).*)?$");
+
+    static final int CLASSIFIED_IDS = 64;
+    static final String[] NO_IDS = new String[0];
+
+    // Versions are serialized through SemanticVersionCodec.ExternalForm; these fields describe
+    // the default form written by older versions that stored identifiers in lists
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("major", Integer.TYPE),
+            new ObjectStreamField("minor", Integer.TYPE),
+            new ObjectStreamField("patch", Integer.TYPE),
+            new ObjectStreamField("preReleaseIdentifiers", List.class),
+            new ObjectStreamField("buildMetadataIdentifiers", List.class),
+    };
+
     int major;
     int minor;
     int patch;
-    List<String> preReleaseIdentifiers;
-    List<String> buildMetadataIdentifiers;
+    // Identifier arrays are never modified once assigned, so they may be shared among instances
+    String[] preReleaseIdentifiers;
+    String[] buildMetadataIdentifiers;
     private transient String stringRepresentation;
+    // Precedence keys: major and minor in the first one, patch and release flag (lowest bit) in the second one
+    transient long majorMinorKey;
+    transient long patchKey;
+    // Bit N is set when N-th pre-release identifier is numeric
+    transient long preReleaseNumericMask;
 
 
     public static boolean isValid(String specification) {
         if (null == specification) {
             return false;
         }
-        final Matcher specMatcher = PATTERN.matcher(specification);
-        return specMatcher.matches();
+        return SemanticVersionParser.isValid(specification, 0, specification.length());
+    }
+
+    /**
+     * Parses all specifications; unlike {@link #is(String)}, invalid specifications do not cause
+     * an exception but are reported by the result together with their positions
+     *
+     * @param specifications version specifications, {@code null} elements are considered invalid
+     * @return parsed versions and positions of invalid specifications
+     */
+    public static VersionParseResult parseAll(Collection<? extends CharSequence> specifications) {
+        return VersionParseResult.parse(specifications, false);
+    }
+
+    /**
+     * Parses all specifications like {@link #parseAll(Collection)}; large collections are split
+     * into parts that are parsed concurrently
+     *
+     * @param specifications version specifications, {@code null} elements are considered invalid
+     * @return parsed versions and positions of invalid specifications
+     */
+    public static VersionParseResult parallelParseAll(Collection<? extends CharSequence> specifications) {
+        return VersionParseResult.parse(specifications, true);
+    }
+
+    /**
+     * Sorts the array of versions in place by precedence, with the same result as
+     * {@code Arrays.sort(versions, OrderBy.NORMAL)}. Versions are distributed by radix passes
+     * over major, minor and patch numbers; comparisons are needed only among pre-release
+     * versions sharing the same numbers. The sort is stable.
+     *
+     * @param versions versions to sort
+     * @throws NullPointerException when the array or any of its elements is {@code null}
+     */
+    public static void sort(SemanticVersion[] versions) {
+        SemanticVersionSorter.sort(versions);
+    }
+
+    /**
+     * Sorts the list of versions by precedence, with the same result as
+     * {@code Collections.sort(versions, OrderBy.NORMAL)}; see {@link #sort(SemanticVersion[])}.
+     *
+     * @param versions versions to sort
+     * @throws NullPointerException when the list or any of its elements is {@code null}
+     */
+    public static void sort(List<SemanticVersion> versions) {
+        final SemanticVersion[] array = versions.toArray(new SemanticVersion[versions.size()]);
+        SemanticVersionSorter.sort(array);
+        copyBack(array, versions);
+    }
+
+    /**
+     * Sorts the array of versions in place like {@link #sort(SemanticVersion[])}; large arrays
+     * are split into parts that are sorted concurrently and then merged.
+     *
+     * @param versions versions to sort
+     * @throws NullPointerException when the array or any of its elements is {@code null}
+     */
+    public static void parallelSort(SemanticVersion[] versions) {
+        SemanticVersionSorter.parallelSort(versions);
+    }
+
+    /**
+     * Sorts the list of versions like {@link #sort(List)}; large lists are split into parts
+     * that are sorted concurrently and then merged.
+     *
+     * @param versions versions to sort
+     * @throws NullPointerException when the list or any of its elements is {@code null}
+     */
+    public static void parallelSort(List<SemanticVersion> versions) {
+        final SemanticVersion[] array = versions.toArray(new SemanticVersion[versions.size()]);
+        SemanticVersionSorter.parallelSort(array);
+        copyBack(array, versions);
+    }
+
+    private static void copyBack(SemanticVersion[] source, List<SemanticVersion> target) {
+        final ListIterator<SemanticVersion> iterator = target.listIterator();
+        for (final SemanticVersion version : source) {
+            iterator.next();
+            iterator.set(version);
+        }
+    }
+
+    /**
+     * Compares precedence of two version specifications without creating {@code SemanticVersion}
+     * instances; the result is consistent with {@link #compareTo(SemanticVersion)} of parsed versions.
+     * Use {@link RawOrder} constants for sorting collections that may contain invalid specifications.
+     *
+     * @param specification1 first version specification
+     * @param specification2 second version specification
+     * @return negative number, zero or positive number if the first version has lower, equal
+     *         or higher precedence, respectively
+     * @throws NullPointerException when any specification is {@code null}
+     * @throws InvalidUserDataException when any specification is not a valid semantic version
+     */
+    public static int compare(CharSequence specification1, CharSequence specification2) {
+        return RawOrder.STRICT.compare(specification1, specification2);
+    }
+
+    /**
+     * Checks whether a part of the provided text is a valid semantic version specification.
+     * No intermediate string is created, so the text may be e.g. a {@link java.nio.CharBuffer}
+     * wrapping a {@code char[]} or a memory-mapped file decoded on the fly.
+     *
+     * @param text source text
+     * @param start index of the first character of version specification
+     * @param end index after the last character of version specification
+     * @return {@code true} if the part of text conforms to semantic version rules
+     * @throws NullPointerException when {@code text} is {@code null}
+     * @throws IndexOutOfBoundsException when the range is not within {@code text}
+     */
+    public static boolean isValid(CharSequence text, int start, int end) {
+        SemanticVersionParser.checkRange(text, start, end);
+        return SemanticVersionParser.isValid(text, start, end);
+    }
+
+    /**
+     * Creates an instance of semantic version from a part of the provided text, without
+     * creating a substring first. Surrounding whitespace within the range is ignored.
+     *
+     * @param text source text
+     * @param start index of the first character of version specification
+     * @param end index after the last character of version specification
+     * @return instance of semantic version object
+     * @throws NullPointerException when {@code text} is {@code null}
+     * @throws IndexOutOfBoundsException when the range is not within {@code text}
+     * @throws InvalidUserDataException when the part of text does not conform to semantic version rules
+     */
+    public static SemanticVersion parse(CharSequence text, int start, int end) {
+        SemanticVersionParser.checkRange(text, start, end);
+        return SemanticVersionParser.parseSpecification(text, start, end);
+    }
+
+    /**
+     * Creates an instance of semantic version from ASCII (or UTF-8) encoded bytes between
+     * position and limit of the buffer. The bytes are scanned in place, which makes
+     * this method suitable for memory-mapped files; buffer position and limit are not modified.
+     *
+     * @param buffer buffer with encoded version specification
+     * @return instance of semantic version object
+     * @throws NullPointerException when {@code buffer} is {@code null}
+     * @throws InvalidUserDataException when the bytes do not conform to semantic version rules
+     */
+    public static SemanticVersion parse(ByteBuffer buffer) {
+        if (null == buffer) {
+            throw new NullPointerException("Buffer is not specified");
+        }
+        final CharSequence text = new SemanticVersionParser.ByteSequence(buffer, buffer.position(), buffer.remaining());
+        return SemanticVersionParser.parseSpecification(text, 0, text.length());
     }
 
     static SemanticVersion parse(String specification) {
         assert null != specification : "Semantic version specification is undefined";
-        final Matcher specMatcher = PATTERN.matcher(specification);
-        final boolean specOk = specMatcher.matches();
-        assert specOk : "Semantic version specification is invalid: " + specification;
-        final SemanticVersion semanticVersion = parseSpecification(specMatcher);
+        assert isValid(specification) : "Semantic version specification is invalid: " + specification;
+        final SemanticVersion semanticVersion = SemanticVersionParser.parseSpecification(specification);
         return semanticVersion;
     }
 
@@ -137,14 +316,57 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
         if (null == specification) {
             throw new NullPointerException("Version holder file not specified");
         }
-        final Matcher specMatcher = PATTERN.matcher(specification);
-        if (!specMatcher.matches()) {
-            throw new InvalidUserDataException("Invalid semantic version specification: " + specification);
-        }
-        final SemanticVersion semanticVersion = parseSpecification(specMatcher);
+        final SemanticVersion semanticVersion = SemanticVersionParser.parseSpecification(specification);
         return semanticVersion;
     }
 
+    /**
+     * Returns a shared instance of semantic version for the provided version string. Results are kept
+     * in a bounded cache (see {@link SemanticVersionCache}), so repeated calls with the same
+     * specification do not parse it again and return the same object.
+     *
+     * @param specification text representation of semantic version
+     * @return shared instance of semantic version object
+     * @throws NullPointerException when {@code specification} is {@code null}
+     * @throws InvalidUserDataException when {@code specification} does not conform to semantic version rules
+     */
+    public static SemanticVersion canonical(String specification) {
+        if (null == specification) {
+            throw new NullPointerException("Semantic version is not specified");
+        }
+        final SemanticVersionCache cache = SemanticVersionCache.CANONICAL;
+        final SemanticVersion cachedVersion = cache.get(specification);
+        if (null != cachedVersion) {
+            return cachedVersion;
+        }
+        final SemanticVersion semanticVersion = SemanticVersionParser.parseSpecification(specification);
+        return cache.put(specification, semanticVersion);
+    }
+
+    /**
+     * Returns the cache used by {@link #canonical(String)}, e.g. to inspect its hit/miss counters
+     *
+     * @return cache of canonical version instances
+     */
+    public static SemanticVersionCache getCanonicalCache() {
+        return SemanticVersionCache.CANONICAL;
+    }
+
+    /**
+     * Decodes a version from its compact binary form produced by {@link #toBytes()}. Decoding
+     * starts at the current position of {@code buffer}, which is then advanced past the version data.
+     *
+     * @param buffer buffer containing encoded version
+     * @return decoded version
+     * @throws IllegalArgumentException when the buffer does not contain valid version data
+     */
+    public static SemanticVersion fromBytes(ByteBuffer buffer) {
+        if (null == buffer) {
+            throw new NullPointerException("Buffer is not specified");
+        }
+        return SemanticVersionCodec.decode(buffer);
+    }
+
     /**
      * Loads a version string from the provided stream and parses it into an instance of semantic version.
      * <p>
@@ -185,6 +407,7 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
      * Loads a version string from a file and parses it into an instance of semantic version.
      * <p>
      * The provided stream is expected to adhere to rules defined in {@link #from(InputStream)}.
+     * The file is read and cached as described in {@link #from(Path)}.
      *
      * @param versionHolder source to be parsed
      * @return instance of semantic version object
@@ -196,24 +419,34 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
         if (null == versionHolder) {
             throw new NullPointerException("Version holder file not specified");
         }
-        if (!versionHolder.canRead() || !versionHolder.isFile()) {
-            throw new InvalidUserDataException("Unable to read version holder file " + versionHolder);
-        }
-        try (final FileReader fileReader = new FileReader(versionHolder);
-             final BufferedReader reader = new BufferedReader(fileReader, 512)) {
-            final SemanticVersion result = readVersion(reader);
-            return result;
-        } catch (GradleException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new InvalidUserDataException("Cannot parse version holder file " + versionHolder, e);
+        return VersionFileCache.SHARED.load(versionHolder.toPath());
+    }
+
+    /**
+     * Loads a version string from a file encoded in UTF-8 and parses it into an instance of semantic version.
+     * The provided file is expected to adhere to rules defined in {@link #from(InputStream)}.
+     * <p>
+     * Loaded versions are cached by canonical path of the file; the file is read again only
+     * when its size or last modification time changes.
+     *
+     * @param versionHolder source to be parsed
+     * @return instance of semantic version object
+     * @throws NullPointerException when {@code versionHolder} is {@code null}
+     * @throws InvalidUserDataException when contents of {@code versionHolder} file does not adhere
+     * to the rules or when the parsed version specification does not conform to semantic version rules
+     */
+    public static SemanticVersion from(Path versionHolder) {
+        if (null == versionHolder) {
+            throw new NullPointerException("Version holder file not specified");
         }
+        return VersionFileCache.SHARED.load(versionHolder);
     }
 
     /**
      * Loads a version string from the provided URL and parses it into an instance of semantic version.
      * <p>
      * The provided stream is expected to adhere to rules defined in {@link #from(InputStream)}.
+     * Default timeouts of {@link VersionUrlLoader} apply; the version is not cached.
      *
      * @param url source object to be parsed
      * @return instance of semantic version object
@@ -223,20 +456,7 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
      * semantic version rules
      */
     public static SemanticVersion from(URL url) {
-        if (null == url) {
-            throw new NullPointerException("Version specification URL not specified");
-        }
-        try (final InputStream urlStream = url.openStream();
-             final InputStreamReader urlReader = new InputStreamReader(urlStream, "UTF-8");
-             final BufferedReader reader = new BufferedReader(urlReader, 512)
-        ) {
-            final SemanticVersion result = readVersion(reader);
-            return result;
-        } catch (GradleException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new InvalidUserDataException("Cannot parse version specification URL " + url, e);
-        }
+        return VersionUrlLoader.UNCACHED.load(url);
     }
 
     /**
@@ -251,13 +471,38 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
      * semantic version rules
      */
     public static SemanticVersion from(String source) {
+        return from(source, VersionUrlLoader.UNCACHED);
+    }
+
+    /**
+     * Loads version from the first valid of the given sources. Sources are queried concurrently
+     * in a hedged manner: the next source is queried when the previous one fails or does not
+     * respond within 1 second. The result of a source is preferred to the results of lower priority
+     * sources, unless it is not available within 1 second after a lower priority source succeeded.
+     * <p>
+     * Every source may be a {@link URL}, {@link File}, {@link Path}, {@link InputStream} or text.
+     * Text is interpreted as a classpath resource when it starts with {@code classpath:}, otherwise
+     * as in {@link #from(String)}.
+     *
+     * @param sources version sources in the order of priority
+     * @return instance of semantic version object
+     * @throws IllegalArgumentException when a source is not supported
+     * @throws InvalidUserDataException when no source provides valid version specification
+     */
+    public static SemanticVersion from(Object... sources) {
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED,
+                VersionSourceResolver.DEFAULT_HEDGE_DELAY);
+        return resolver.resolve(sources);
+    }
+
+    static SemanticVersion from(String source, VersionUrlLoader urlLoader) {
         if (null == source) {
             throw new NullPointerException("Version specification source not defined");
         }
         // Try to interpret source as an URL
         try {
             final URL sourceUrl = new URL(source);
-            return from(sourceUrl);
+            return urlLoader.load(sourceUrl);
         } catch (MalformedURLException e) {
             // Not an URL, fall back to next case
         }
@@ -269,12 +514,49 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
         throw new InvalidUserDataException("Cannot determine nature of version specification source: " + source);
     }
 
-    private SemanticVersion(int major, int minor, int patch) {
+    /**
+     * Finds all semantic versions occurring in free text, e.g. in a changelog; see {@link VersionScanner}
+     * for the rules of recognition. The text is read lazily in constant memory, as the returned
+     * iterator advances.
+     *
+     * @param reader source of text
+     * @return iterator over version occurrences, it should be closed when the iteration is abandoned
+     * @throws NullPointerException when {@code reader} is {@code null}
+     */
+    public static VersionScanner scan(Reader reader) {
+        return new VersionScanner(reader);
+    }
+
+    /**
+     * Finds all semantic versions occurring in a text file encoded in UTF-8; see {@link #scan(Reader)}
+     *
+     * @param path text file
+     * @return iterator over version occurrences, it should be closed when the iteration is abandoned
+     * @throws NullPointerException when {@code path} is {@code null}
+     * @throws InvalidUserDataException when the file cannot be opened
+     */
+    public static VersionScanner scan(Path path) {
+        if (null == path) {
+            throw new NullPointerException("Scanned file is not specified");
+        }
+        try {
+            return new VersionScanner(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new InvalidUserDataException("Cannot open scanned file " + path, e);
+        }
+    }
+
+    SemanticVersion(int major, int minor, int patch) {
+        this(major, minor, patch, NO_IDS, NO_IDS);
+    }
+
+    private SemanticVersion(int major, int minor, int patch, String[] preReleaseIds, String[] buildMetadataIds) {
         this.major = major;
         this.minor = minor;
         this.patch = patch;
-        preReleaseIdentifiers = new ArrayList<>(1);
-        buildMetadataIdentifiers = new ArrayList<>(1);
+        this.preReleaseIdentifiers = preReleaseIds;
+        this.buildMetadataIdentifiers = buildMetadataIds;
+        updatePrecedenceKey();
     }
 
     SemanticVersion() {
@@ -393,7 +675,7 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
      *         any pre-release identifiers present)
      */
     public boolean isPreRelease() {
-        return (0 == major) || !preReleaseIdentifiers.isEmpty();
+        return (0 == major) || (0 != preReleaseIdentifiers.length);
     }
 
     /**
@@ -407,7 +689,7 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
      *         no pre-release identifiers present)
      */
     public boolean isStable() {
-        return (0 != major) && preReleaseIdentifiers.isEmpty();
+        return (0 != major) && (0 == preReleaseIdentifiers.length);
     }
 
     /**
@@ -416,7 +698,7 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
      * @return {@code true} if keyword {@code SNAPSHOT} is present among pre-release identifiers
      */
     public boolean isSnapshot() {
-        return preReleaseIdentifiers.contains(SNAPSHOT_ID);
+        return contains(preReleaseIdentifiers, preReleaseIdentifiers.length, SNAPSHOT_ID);
     }
 
     /**
@@ -424,14 +706,14 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
      * @return a list of pre-release identifiers
      */
     public List<String> getPreReleaseIdentifiers() {
-        return Collections.unmodifiableList(preReleaseIdentifiers);
+        return IdentifierList.of(preReleaseIdentifiers);
     }
 
     public boolean hasPreReleaseIdentifier(String id) {
         if (null == id) {
             throw new NullPointerException();
         }
-        return preReleaseIdentifiers.contains(id);
+        return contains(preReleaseIdentifiers, preReleaseIdentifiers.length, id);
     }
 
     public SemanticVersion withPreReleaseIdentifier(String id) {
@@ -439,73 +721,52 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
             throw new NullPointerException("Pre-release identifier not specified");
         } else if (!validId(id)) {
             throw new InvalidUserDataException("Invalid pre-release ID: " + id);
-        } else if (preReleaseIdentifiers.contains(id)) {
+        } else if (contains(preReleaseIdentifiers, preReleaseIdentifiers.length, id)) {
             return this;
         }
-        final SemanticVersion extendedVersion = new SemanticVersion(major, minor, patch);
-        extendedVersion.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        extendedVersion.preReleaseIdentifiers.add(id);
-        extendedVersion.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        return extendedVersion;
+        final String[] extendedIds = append(preReleaseIdentifiers, id);
+        return new SemanticVersion(major, minor, patch, extendedIds, buildMetadataIdentifiers);
     }
 
     public SemanticVersion withOptionalPreReleaseIdentifier(String id) {
-        if ((null == id) || preReleaseIdentifiers.contains(id)) {
+        if ((null == id) || contains(preReleaseIdentifiers, preReleaseIdentifiers.length, id)) {
             return this;
         } else if (!validId(id)) {
             throw new InvalidUserDataException("Invalid pre-release ID: " + id);
         }
-        final SemanticVersion extendedVersion = new SemanticVersion(major, minor, patch);
-        extendedVersion.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        extendedVersion.preReleaseIdentifiers.add(id);
-        extendedVersion.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        return extendedVersion;
+        final String[] extendedIds = append(preReleaseIdentifiers, id);
+        return new SemanticVersion(major, minor, patch, extendedIds, buildMetadataIdentifiers);
     }
 
     public SemanticVersion withPreReleaseIdentifiers(String... ids) {
-        final SemanticVersion extendedVersion = new SemanticVersion(major, minor, patch);
-        extendedVersion.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        extendedVersion.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        for (final String id : ids) {
-            if ((null != id) && !extendedVersion.preReleaseIdentifiers.contains(id)) {
-                if (!validId(id)) {
-                    throw new InvalidUserDataException("Invalid pre-release ID: " + id);
-                }
-                extendedVersion.preReleaseIdentifiers.add(id);
-            }
-        }
-        return extendedVersion;
+        final String[] extendedIds = appendAll(preReleaseIdentifiers, ids, "Invalid pre-release ID: ");
+        return new SemanticVersion(major, minor, patch, extendedIds, buildMetadataIdentifiers);
     }
 
     public SemanticVersion withPreReleaseIdentifiersFrom(SemanticVersion referenceVersion) {
-        final SemanticVersion augmented = new SemanticVersion(major, minor, patch);
-        augmented.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        augmented.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        if (null != referenceVersion) {
-            augmented.preReleaseIdentifiers.addAll(referenceVersion.getPreReleaseIds());
-        }
-        return augmented;
+        final String[] augmentedIds = (null != referenceVersion)
+                ? concat(preReleaseIdentifiers, referenceVersion.preReleaseIdentifiers)
+                : preReleaseIdentifiers;
+        return new SemanticVersion(major, minor, patch, augmentedIds, buildMetadataIdentifiers);
     }
 
     public SemanticVersion stripPreReleaseIdentifiers() {
-        final SemanticVersion stripped = new SemanticVersion(major, minor, patch);
-        stripped.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        return stripped;
+        return new SemanticVersion(major, minor, patch, NO_IDS, buildMetadataIdentifiers);
     }
 
     protected List<String> getPreReleaseIds() {
-        return preReleaseIdentifiers;
+        return IdentifierList.of(preReleaseIdentifiers);
     }
 
     public List<String> getBuildMetadataIdentifiers() {
-        return Collections.unmodifiableList(buildMetadataIdentifiers);
+        return IdentifierList.of(buildMetadataIdentifiers);
     }
 
     public boolean hasBuildMetadataIdentifier(String id) {
         if (null == id) {
             throw new NullPointerException();
         }
-        return buildMetadataIdentifiers.contains(id);
+        return contains(buildMetadataIdentifiers, buildMetadataIdentifiers.length, id);
     }
 
     public SemanticVersion withBuildMetadataIdentifier(String id) {
@@ -513,62 +774,41 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
             throw new NullPointerException("Build metadata identifier not specified");
         } else if (!validId(id)) {
             throw new InvalidUserDataException("Invalid build metadata ID: " + id);
-        } else if (buildMetadataIdentifiers.contains(id)) {
+        } else if (contains(buildMetadataIdentifiers, buildMetadataIdentifiers.length, id)) {
             return this;
         }
-        final SemanticVersion extendedVersion = new SemanticVersion(major, minor, patch);
-        extendedVersion.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        extendedVersion.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        extendedVersion.buildMetadataIdentifiers.add(id);
-        return extendedVersion;
+        final String[] extendedIds = append(buildMetadataIdentifiers, id);
+        return new SemanticVersion(major, minor, patch, preReleaseIdentifiers, extendedIds);
     }
 
     public SemanticVersion withOptionalBuildMetadataIdentifier(String id) {
-        if ((null == id) || buildMetadataIdentifiers.contains(id)) {
+        if ((null == id) || contains(buildMetadataIdentifiers, buildMetadataIdentifiers.length, id)) {
             return this;
         } else if (!validId(id)) {
             throw new InvalidUserDataException("Invalid build metadata ID: " + id);
         }
-        final SemanticVersion extendedVersion = new SemanticVersion(major, minor, patch);
-        extendedVersion.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        extendedVersion.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        extendedVersion.buildMetadataIdentifiers.add(id);
-        return extendedVersion;
+        final String[] extendedIds = append(buildMetadataIdentifiers, id);
+        return new SemanticVersion(major, minor, patch, preReleaseIdentifiers, extendedIds);
     }
 
     public SemanticVersion withBuildMetadataIdentifiers(String... ids) {
-        final SemanticVersion extendedVersion = new SemanticVersion(major, minor, patch);
-        extendedVersion.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        extendedVersion.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        for (final String id : ids) {
-            if ((null != id) && !extendedVersion.buildMetadataIdentifiers.contains(id)) {
-                if (!validId(id)) {
-                    throw new InvalidUserDataException("Invalid build metadata ID: " + id);
-                }
-                extendedVersion.buildMetadataIdentifiers.add(id);
-            }
-        }
-        return extendedVersion;
+        final String[] extendedIds = appendAll(buildMetadataIdentifiers, ids, "Invalid build metadata ID: ");
+        return new SemanticVersion(major, minor, patch, preReleaseIdentifiers, extendedIds);
     }
 
     public SemanticVersion withBuildMetadataIdentifiersFrom(SemanticVersion referenceVersion) {
-        final SemanticVersion augmented = new SemanticVersion(major, minor, patch);
-        augmented.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        augmented.buildMetadataIdentifiers.addAll(buildMetadataIdentifiers);
-        if (null != referenceVersion) {
-            augmented.buildMetadataIdentifiers.addAll(referenceVersion.getBuildMetadataIds());
-        }
-        return augmented;
+        final String[] augmentedIds = (null != referenceVersion)
+                ? concat(buildMetadataIdentifiers, referenceVersion.buildMetadataIdentifiers)
+                : buildMetadataIdentifiers;
+        return new SemanticVersion(major, minor, patch, preReleaseIdentifiers, augmentedIds);
     }
 
     public SemanticVersion stripBuildMetadataIdentifiers() {
-        final SemanticVersion stripped = new SemanticVersion(major, minor, patch);
-        stripped.preReleaseIdentifiers.addAll(preReleaseIdentifiers);
-        return stripped;
+        return new SemanticVersion(major, minor, patch, preReleaseIdentifiers, NO_IDS);
     }
 
     protected List<String> getBuildMetadataIds() {
-        return buildMetadataIdentifiers;
+        return IdentifierList.of(buildMetadataIdentifiers);
     }
 
     public SemanticVersion stripAllIdentifiers() {
@@ -576,10 +816,101 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
         return stripped;
     }
 
+    /**
+     * Creates a builder initialized with version numbers and identifiers of this version. It is
+     * a cheaper alternative to chains of {@code with*} methods, as no intermediate version objects
+     * are created:
+     * <pre>
+     *   project.version = project.version.toBuilder()
+     *           .withPreReleaseIdentifier(branchName)
+     *           .withOptionalPreReleaseIdentifier(ciJobName)
+     *           .withBuildMetadataIdentifier(gitCommit)
+     *           .build()
+     * </pre>
+     *
+     * @return new builder
+     */
+    public Builder toBuilder() {
+        final Builder builder = new Builder(major, minor, patch);
+        Collections.addAll(builder.preReleaseIds, preReleaseIdentifiers);
+        Collections.addAll(builder.buildMetadataIds, buildMetadataIdentifiers);
+        return builder;
+    }
+
+    /**
+     * Creates a builder of version X.Y.Z without any identifiers
+     *
+     * @param major major version number X
+     * @param minor minor version number Y
+     * @param patch patch version number Z
+     * @return new builder
+     * @throws IllegalArgumentException when any of version numbers is negative
+     */
+    public static Builder builder(int major, int minor, int patch) {
+        return new Builder(major, minor, patch);
+    }
+
+    /**
+     * Recomputes precedence keys and classification of pre-release identifiers used by
+     * {@link #compareTo(SemanticVersion)}; must be called whenever version numbers
+     * or pre-release identifiers change
+     */
+    final void updatePrecedenceKey() {
+        majorMinorKey = ((long) major << 32) | minor;
+        patchKey = ((long) patch << 1) | ((0 == preReleaseIdentifiers.length) ? 1L : 0L);
+        preReleaseNumericMask = numericIdMask(preReleaseIdentifiers);
+    }
+
+    /**
+     * Encodes this version into a compact binary form: major, minor and patch numbers as varints,
+     * followed by length-prefixed pre-release and build metadata identifiers. A plain {@code X.Y.Z}
+     * version with small numbers takes 5 bytes. Use {@link #fromBytes(ByteBuffer)} to decode it.
+     *
+     * @return encoded version
+     */
+    public byte[] toBytes() {
+        return SemanticVersionCodec.encode(this);
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        return SemanticVersionCodec.canEncode(this) ? new SemanticVersionCodec.ExternalForm(this) : this;
+    }
+
+    /**
+     * Default serialized form, used only for versions that cannot be encoded compactly (i.e. with
+     * a negative number after an overflow in {@code increment*()}); it keeps the original stream format
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        final ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("major", major);
+        fields.put("minor", minor);
+        fields.put("patch", patch);
+        fields.put("preReleaseIdentifiers", new ArrayList<>(Arrays.asList(preReleaseIdentifiers)));
+        fields.put("buildMetadataIdentifiers", new ArrayList<>(Arrays.asList(buildMetadataIdentifiers)));
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        final ObjectInputStream.GetField fields = in.readFields();
+        major = fields.get("major", 0);
+        minor = fields.get("minor", 0);
+        patch = fields.get("patch", 0);
+        preReleaseIdentifiers = toIdArray((List<?>) fields.get("preReleaseIdentifiers", null));
+        buildMetadataIdentifiers = toIdArray((List<?>) fields.get("buildMetadataIdentifiers", null));
+        updatePrecedenceKey();
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return SemanticVersionCache.CANONICAL.canonicalize(this);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
             return true;
+        } else if (obj instanceof LazyVersion) {
+            // Keeps equality symmetric, lazy version compares its resolved value
+            return equals(((LazyVersion) obj).get());
         } else if (!(obj instanceof SemanticVersion)) {
             return false;
         }
@@ -590,9 +921,9 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
             return false;
         } else if (patch != other.getPatchRevision()) {
             return false;
-        } else if (!preReleaseIdentifiers.equals(other.getPreReleaseIds())) {
+        } else if (!Arrays.equals(preReleaseIdentifiers, other.preReleaseIdentifiers)) {
             return false;
-        } else if (!buildMetadataIdentifiers.equals(other.getBuildMetadataIds())) {
+        } else if (!Arrays.equals(buildMetadataIdentifiers, other.buildMetadataIdentifiers)) {
             return false;
         }
         return true;
@@ -600,37 +931,23 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
 
     @Override
     public int hashCode() {
-        return (29 * major + minor) * 47 + patch + 6353 * preReleaseIdentifiers.hashCode();
+        return (29 * major + minor) * 47 + patch + 6353 * Arrays.hashCode(preReleaseIdentifiers);
     }
 
     @Override
     public int compareTo(SemanticVersion other) {
-        final int otherMajor = other.getMajorVersion();
-        if (major != otherMajor) {
-            return (major < otherMajor) ? -1 : 1;
-        }
-        final int otherMinor = other.getMinorVersion();
-        if (minor != otherMinor) {
-            return (minor < otherMinor) ? -1 : 1;
-        }
-        final int otherPatch = other.getPatchRevision();
-        if (patch != otherPatch) {
-            return (patch < otherPatch) ? -1 : 1;
-        }
-        final List<String> otherPreReleaseIds = other.getPreReleaseIds();
-        final int idCmp = compareIdLists(preReleaseIdentifiers, otherPreReleaseIds);
-        return idCmp;
+        return comparePrecedence(this, other);
     }
 
     @Override
     public String toString() {
         if (null == stringRepresentation) {
-            final int ids = preReleaseIdentifiers.size() + buildMetadataIdentifiers.size();
+            final int ids = preReleaseIdentifiers.length + buildMetadataIdentifiers.length;
             final StringBuilder str = new StringBuilder(16 + 8 * ids);
             str.append(major);
             str.append('.').append(minor);
             str.append('.').append(patch);
-            if (!preReleaseIdentifiers.isEmpty()) {
+            if (0 != preReleaseIdentifiers.length) {
                 char separator = '-';
                 for (final String id : preReleaseIdentifiers) {
                     str.append(separator);
@@ -640,7 +957,7 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
                     str.append(id);
                 }
             }
-            if (!buildMetadataIdentifiers.isEmpty()) {
+            if (0 != buildMetadataIdentifiers.length) {
                 char separator = '+';
                 for (final String id : buildMetadataIdentifiers) {
                     str.append(separator);
@@ -656,6 +973,186 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
     }
 
 
+    /**
+     * Mutable builder of semantic versions, see {@link SemanticVersion#toBuilder()}. Identifier handling
+     * of its methods is the same as of the corresponding {@code with*} and {@code strip*} methods
+     * of {@link SemanticVersion}, but every identifier is validated and stored only once.
+     */
+    public static final class Builder {
+        int major;
+        int minor;
+        int patch;
+        final List<String> preReleaseIds;
+        final List<String> buildMetadataIds;
+
+        Builder(int major, int minor, int patch) {
+            this.preReleaseIds = new ArrayList<>(4);
+            this.buildMetadataIds = new ArrayList<>(4);
+            withMajorVersion(major);
+            withMinorVersion(minor);
+            withPatchRevision(patch);
+        }
+
+        public Builder withMajorVersion(int major) {
+            if (major < 0) {
+                throw new IllegalArgumentException("invalid major version: " + major);
+            }
+            this.major = major;
+            return this;
+        }
+
+        public Builder withMinorVersion(int minor) {
+            if (minor < 0) {
+                throw new IllegalArgumentException("invalid minor version: " + minor);
+            }
+            this.minor = minor;
+            return this;
+        }
+
+        public Builder withPatchRevision(int patch) {
+            if (patch < 0) {
+                throw new IllegalArgumentException("invalid patch revision: " + patch);
+            }
+            this.patch = patch;
+            return this;
+        }
+
+        public Builder withPreReleaseIdentifier(String id) {
+            if (null == id) {
+                throw new NullPointerException("Pre-release identifier not specified");
+            }
+            addPreReleaseId(id);
+            return this;
+        }
+
+        public Builder withOptionalPreReleaseIdentifier(String id) {
+            if (null != id) {
+                addPreReleaseId(id);
+            }
+            return this;
+        }
+
+        public Builder withPreReleaseIdentifiers(String... ids) {
+            for (final String id : ids) {
+                if (null != id) {
+                    addPreReleaseId(id);
+                }
+            }
+            return this;
+        }
+
+        public Builder withPreReleaseIdentifiersFrom(SemanticVersion referenceVersion) {
+            if (null != referenceVersion) {
+                Collections.addAll(preReleaseIds, referenceVersion.preReleaseIdentifiers);
+            }
+            return this;
+        }
+
+        public Builder stripPreReleaseIdentifiers() {
+            preReleaseIds.clear();
+            return this;
+        }
+
+        public Builder withBuildMetadataIdentifier(String id) {
+            if (null == id) {
+                throw new NullPointerException("Build metadata identifier not specified");
+            }
+            addBuildMetadataId(id);
+            return this;
+        }
+
+        public Builder withOptionalBuildMetadataIdentifier(String id) {
+            if (null != id) {
+                addBuildMetadataId(id);
+            }
+            return this;
+        }
+
+        public Builder withBuildMetadataIdentifiers(String... ids) {
+            for (final String id : ids) {
+                if (null != id) {
+                    addBuildMetadataId(id);
+                }
+            }
+            return this;
+        }
+
+        public Builder withBuildMetadataIdentifiersFrom(SemanticVersion referenceVersion) {
+            if (null != referenceVersion) {
+                Collections.addAll(buildMetadataIds, referenceVersion.buildMetadataIdentifiers);
+            }
+            return this;
+        }
+
+        public Builder stripBuildMetadataIdentifiers() {
+            buildMetadataIds.clear();
+            return this;
+        }
+
+        public Builder stripAllIdentifiers() {
+            preReleaseIds.clear();
+            buildMetadataIds.clear();
+            return this;
+        }
+
+        /**
+         * Creates a version object from the current state of this builder. The builder
+         * may be used further, its later changes do not affect the created version.
+         *
+         * @return new version object
+         */
+        public SemanticVersion build() {
+            return new SemanticVersion(major, minor, patch, toIdArray(preReleaseIds), toIdArray(buildMetadataIds));
+        }
+
+        private void addPreReleaseId(String id) {
+            if (!preReleaseIds.contains(id)) {
+                if (!validId(id)) {
+                    throw new InvalidUserDataException("Invalid pre-release ID: " + id);
+                }
+                preReleaseIds.add(SemanticVersionParser.internIdentifier(id));
+            }
+        }
+
+        private void addBuildMetadataId(String id) {
+            if (!buildMetadataIds.contains(id)) {
+                if (!validId(id)) {
+                    throw new InvalidUserDataException("Invalid build metadata ID: " + id);
+                }
+                buildMetadataIds.add(SemanticVersionParser.internIdentifier(id));
+            }
+        }
+    }
+
+
+    /**
+     * Read-only list view of an identifier array
+     */
+    private static final class IdentifierList extends AbstractList<String> implements RandomAccess, Serializable {
+        private static final long serialVersionUID = 2370542155712858541L;
+
+        private final String[] ids;
+
+        static List<String> of(String[] ids) {
+            return (0 == ids.length) ? Collections.<String>emptyList() : new IdentifierList(ids);
+        }
+
+        private IdentifierList(String[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public String get(int index) {
+            return ids[index];
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+
+
     public enum OrderBy implements Comparator<SemanticVersion> {
         NORMAL {
             @Override
@@ -663,34 +1160,93 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
                 if ((null == sv1) || (null == sv2)) {
                     throw new NullPointerException();
                 }
-                // Compare 3 key parts - major, minor, patch
-                int cmp = Integer.compare(sv1.getMajorVersion(), sv2.getMajorVersion());
-                if (0 != cmp) return cmp;
-                cmp = Integer.compare(sv1.getMinorVersion(), sv2.getMinorVersion());
-                if (0 != cmp) return cmp;
-                cmp = Integer.compare(sv1.getPatchRevision(), sv2.getPatchRevision());
-                if (0 != cmp) return cmp;
-                // Compare pre-release status
-                final List<String> ids1 = sv1.getPreReleaseIds();
-                final List<String> ids2 = sv2.getPreReleaseIds();
-                cmp = compareIdLists(ids1, ids2);
-                return cmp;
+                return comparePrecedence(sv1, sv2);
             }
         }
     }
 
+    /**
+     * Orderings of version specifications that compare raw text without creating
+     * {@code SemanticVersion} instances. Valid specifications are ordered the same way
+     * as by {@link SemanticVersion#compareTo(SemanticVersion)}; the constants differ
+     * in the handling of invalid specifications.
+     */
+    public enum RawOrder implements Comparator<CharSequence> {
+        /**
+         * Invalid specification causes {@link InvalidUserDataException}
+         */
+        STRICT {
+            @Override
+            int compareInvalid(CharSequence s1, boolean valid1, CharSequence s2, boolean valid2) {
+                throw new InvalidUserDataException("Invalid semantic version specification: " + (valid1 ? s2 : s1));
+            }
+        },
+
+        /**
+         * Invalid specifications precede all valid ones and are ordered lexicographically among themselves
+         */
+        INVALID_FIRST {
+            @Override
+            int compareInvalid(CharSequence s1, boolean valid1, CharSequence s2, boolean valid2) {
+                if (valid1 == valid2) {
+                    return compareText(s1, s2);
+                }
+                return valid1 ? 1 : -1;
+            }
+        },
+
+        /**
+         * Invalid specifications follow all valid ones and are ordered lexicographically among themselves
+         */
+        INVALID_LAST {
+            @Override
+            int compareInvalid(CharSequence s1, boolean valid1, CharSequence s2, boolean valid2) {
+                if (valid1 == valid2) {
+                    return compareText(s1, s2);
+                }
+                return valid1 ? -1 : 1;
+            }
+        };
+
+        @Override
+        public int compare(CharSequence s1, CharSequence s2) {
+            if ((null == s1) || (null == s2)) {
+                throw new NullPointerException();
+            }
+            final boolean valid1 = SemanticVersionParser.isValid(s1, 0, s1.length());
+            final boolean valid2 = SemanticVersionParser.isValid(s2, 0, s2.length());
+            if (valid1 && valid2) {
+                return SemanticVersionParser.comparePrecedence(s1, s2);
+            }
+            return compareInvalid(s1, valid1, s2, valid2);
+        }
+
+        abstract int compareInvalid(CharSequence s1, boolean valid1, CharSequence s2, boolean valid2);
+
+        static int compareText(CharSequence s1, CharSequence s2) {
+            final int length1 = s1.length();
+            final int length2 = s2.length();
+            final int commonLength = Math.min(length1, length2);
+            for (int i = 0; i < commonLength; ++i) {
+                final char c1 = s1.charAt(i);
+                final char c2 = s2.charAt(i);
+                if (c1 != c2) {
+                    return (c1 < c2) ? -1 : 1;
+                }
+            }
+            return (length1 == length2) ? 0 : ((length1 < length2) ? -1 : 1);
+        }
+    }
+
 
     static SemanticVersion readVersion(BufferedReader reader) throws IOException {
-        final Pattern ignoredLinePattern = Pattern.compile("^\\s*(?:(?:#|//).*)?$");
-        final Matcher ignoredLineMatcher = ignoredLinePattern.matcher("");
-        final Matcher versionMatcher = PATTERN.matcher("");
+        final Matcher ignoredLineMatcher = IGNORED_LINE_PATTERN.matcher("");
         SemanticVersion result = null;
         String line;
         FILE_SCAN:
         while (null != (line = reader.readLine())) {
-            versionMatcher.reset(line);
-            if (versionMatcher.matches()) {
-                result = parseSpecification(versionMatcher);
+            result = SemanticVersionParser.parse(line, 0, line.length());
+            if (null != result) {
                 break FILE_SCAN;
             }
             ignoredLineMatcher.reset(line);
@@ -704,92 +1260,74 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
         return result;
     }
 
-    static SemanticVersion parseSpecification(Matcher versionMatcher) {
-        assert null != versionMatcher;
-        assert versionMatcher.groupCount() >= 4;
-        final String wholeSpec = versionMatcher.group(1);
-        final int major = Integer.parseInt(versionMatcher.group(2));
-        final int minor = Integer.parseInt(versionMatcher.group(3));
-        final int patch = Integer.parseInt(versionMatcher.group(4));
-        final SemanticVersion result = new SemanticVersion(major, minor, patch);
-        if (versionMatcher.groupCount() > 4) {
-            // Parse optional components
-            try {
-                final String preReleasePart = versionMatcher.group(5);
-                parseIdentifiers(preReleasePart, result.preReleaseIdentifiers);
-            } catch (Exception e) {
-                throw new InvalidUserDataException("Invalid pre-release part in semantic version: " + wholeSpec, e);
-            }
-            try {
-                final String buildMetadataPart = versionMatcher.group(6);
-                parseIdentifiers(buildMetadataPart, result.buildMetadataIdentifiers);
-            } catch (Exception e) {
-                throw new InvalidUserDataException("Invalid build metadata part in semantic version: " + wholeSpec, e);
-            }
-        }
-        return result;
-    }
-
-    static void parseIdentifiers(String idPart, List<? super String> targetList) {
-        if ((null == idPart) || idPart.isEmpty()) {
-            return;
+    static int comparePrecedence(SemanticVersion sv1, SemanticVersion sv2) {
+        // Compare 3 key parts - major, minor, patch - and pre-release status
+        final long key1 = sv1.majorMinorKey;
+        final long key2 = sv2.majorMinorKey;
+        if (key1 != key2) {
+            return (key1 < key2) ? -1 : 1;
         }
-        final Pattern identifierPattern = Pattern.compile("(?:\\A|\\G\\.)(0|\\d.*\\D.*|[1-9]\\d*|[a-zA-Z][a-zA-Z0-9-]*)?+([^.]*)(?=\\Z|\\.)");
-        final Matcher identifierMatcher = identifierPattern.matcher(idPart);
-        while (identifierMatcher.find()) {
-            final String identifier = identifierMatcher.group(1);
-            final String invalidPart = identifierMatcher.group(2);
-            if (!invalidPart.isEmpty()) {
-                throw new IllegalArgumentException("Malformed identifier: " + identifier);
-            }
-            targetList.add(identifier);
-        }
-        if (!identifierMatcher.hitEnd()) {
-            throw new IllegalArgumentException("Malformed identifier sequence: " + idPart);
+        final long patchKey1 = sv1.patchKey;
+        final long patchKey2 = sv2.patchKey;
+        if (patchKey1 != patchKey2) {
+            return (patchKey1 < patchKey2) ? -1 : 1;
+        } else if (0L != (patchKey1 & 1L)) {
+            // Both are releases with the same major, minor and patch numbers
+            return 0;
         }
+        return compareIdentifiers(sv1.preReleaseIdentifiers, sv1.preReleaseNumericMask, sv2.preReleaseIdentifiers, sv2.preReleaseNumericMask);
     }
 
     static int compareIdLists(List<String> ids1, List<String> ids2) {
         assert null != ids1;
         assert null != ids2;
-        final boolean empty1 = ids1.isEmpty();
-        final boolean empty2 = ids2.isEmpty();
-        if (empty1) {
-            return empty2 ? 0 : 1;
-        } else if (empty2) {
+        final String[] idArray1 = ids1.toArray(new String[ids1.size()]);
+        final String[] idArray2 = ids2.toArray(new String[ids2.size()]);
+        return compareIdentifiers(idArray1, numericIdMask(idArray1), idArray2, numericIdMask(idArray2));
+    }
+
+    /**
+     * Compares arrays of pre-release identifiers; the numeric nature of the first
+     * {@value #CLASSIFIED_IDS} identifiers is given by bit masks, further identifiers
+     * are classified when needed
+     */
+    static int compareIdentifiers(String[] ids1, long numericMask1, String[] ids2, long numericMask2) {
+        final int size1 = ids1.length;
+        final int size2 = ids2.length;
+        if (0 == size1) {
+            return (0 == size2) ? 0 : 1;
+        } else if (0 == size2) {
             return -1;
         }
-        final Iterator<String> iter1 = ids1.iterator();
-        final Iterator<String> iter2 = ids2.iterator();
-        int cmp = 0;
-        while ((0 == cmp) && iter1.hasNext() && iter2.hasNext()) {
-            final String id1 = iter1.next();
-            final String id2 = iter2.next();
-            cmp = compareIds(id1, id2);
-        }
-        if (0 == cmp) {
-            if (iter1.hasNext()) {
-                assert !iter2.hasNext();
-                cmp = 1;
-            } else if (iter2.hasNext()) {
-                cmp = -1;
+        final int commonSize = Math.min(size1, size2);
+        for (int i = 0; i < commonSize; ++i) {
+            final String id1 = ids1[i];
+            final String id2 = ids2[i];
+            if (id1 == id2) {
+                continue;
+            }
+            final boolean numeric1 = (i < CLASSIFIED_IDS) ? (0L != (numericMask1 & (1L << i))) : isNumber(id1);
+            final boolean numeric2 = (i < CLASSIFIED_IDS) ? (0L != (numericMask2 & (1L << i))) : isNumber(id2);
+            final int cmp = compareIds(id1, numeric1, id2, numeric2);
+            if (0 != cmp) {
+                return cmp;
             }
         }
-        return cmp;
+        return (size1 == size2) ? 0 : ((size1 < size2) ? -1 : 1);
     }
 
     static int compareIds(String id1, String id2) {
         assert null != id1;
         assert null != id2;
-        final boolean id1IsNumber = isNumber(id1);
-        final boolean id2IsNumber = isNumber(id2);
+        return compareIds(id1, isNumber(id1), id2, isNumber(id2));
+    }
+
+    static int compareIds(String id1, boolean id1IsNumber, String id2, boolean id2IsNumber) {
         if (id1IsNumber) {
             if (!id2IsNumber) {
                 return -1;
             }
-            final int n1 = Integer.parseInt(id1);
-            final int n2 = Integer.parseInt(id2);
-            return Integer.compare(n1, n2);
+            return compareNumbers(id1, id2);
         } else if (id2IsNumber) {
             return 1;
         }
@@ -797,6 +1335,49 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
         return id1.compareTo(id2);
     }
 
+    /**
+     * Compares numeric identifiers of arbitrary length without converting them to numbers:
+     * a number with more significant digits is greater, numbers with the same count
+     * of significant digits are compared digit by digit
+     */
+    static int compareNumbers(String n1, String n2) {
+        final int length1 = n1.length();
+        final int length2 = n2.length();
+        // Valid numeric identifiers have no leading zeros, but skip them just in case
+        int start1 = 0;
+        while ((start1 < length1 - 1) && ('0' == n1.charAt(start1))) {
+            ++start1;
+        }
+        int start2 = 0;
+        while ((start2 < length2 - 1) && ('0' == n2.charAt(start2))) {
+            ++start2;
+        }
+        final int digits1 = length1 - start1;
+        final int digits2 = length2 - start2;
+        if (digits1 != digits2) {
+            return (digits1 < digits2) ? -1 : 1;
+        }
+        for (int i = 0; i < digits1; ++i) {
+            final char c1 = n1.charAt(start1 + i);
+            final char c2 = n2.charAt(start2 + i);
+            if (c1 != c2) {
+                return (c1 < c2) ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    static long numericIdMask(String[] ids) {
+        final int classifiedCount = Math.min(ids.length, CLASSIFIED_IDS);
+        long mask = 0L;
+        for (int i = 0; i < classifiedCount; ++i) {
+            if (isNumber(ids[i])) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
     static boolean isNumber(String id) {
         assert null != id;
         assert !id.isEmpty();
@@ -810,10 +1391,61 @@ public class SemanticVersion implements Serializable, Comparable<SemanticVersion
         return true;
     }
 
+    static boolean contains(String[] ids, int count, String id) {
+        for (int i = 0; i < count; ++i) {
+            if (id.equals(ids[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] append(String[] ids, String id) {
+        final String[] extendedIds = Arrays.copyOf(ids, ids.length + 1);
+        extendedIds[ids.length] = SemanticVersionParser.internIdentifier(id);
+        return extendedIds;
+    }
+
+    private static String[] appendAll(String[] ids, String[] newIds, String errorMessage) {
+        final String[] extendedIds = Arrays.copyOf(ids, ids.length + newIds.length);
+        int count = ids.length;
+        for (final String id : newIds) {
+            if ((null != id) && !contains(extendedIds, count, id)) {
+                if (!validId(id)) {
+                    throw new InvalidUserDataException(errorMessage + id);
+                }
+                extendedIds[count++] = SemanticVersionParser.internIdentifier(id);
+            }
+        }
+        return (count == ids.length) ? ids : Arrays.copyOf(extendedIds, count);
+    }
+
+    private static String[] concat(String[] ids, String[] otherIds) {
+        if (0 == otherIds.length) {
+            return ids;
+        } else if (0 == ids.length) {
+            return otherIds;
+        }
+        final String[] result = Arrays.copyOf(ids, ids.length + otherIds.length);
+        System.arraycopy(otherIds, 0, result, ids.length, otherIds.length);
+        return result;
+    }
+
+    static String[] toIdArray(Collection<?> ids) {
+        if ((null == ids) || ids.isEmpty()) {
+            return NO_IDS;
+        }
+        final String[] result = new String[ids.size()];
+        int i = 0;
+        for (final Object id : ids) {
+            result[i++] = SemanticVersionParser.internIdentifier((String) id);
+        }
+        return result;
+    }
+
     static boolean validId(String id) {
         assert null != id;
-        final Matcher matcher = IDENTIFIER_PATTERN.matcher(id);
-        return matcher.matches();
+        return SemanticVersionParser.isValidIdentifier(id);
     }
 
 }
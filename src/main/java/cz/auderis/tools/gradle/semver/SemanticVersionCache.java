@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of canonical {@link SemanticVersion} instances, used by {@link SemanticVersion#canonical(String)}
+ * and by deserialization. The cache is direct-mapped: every key has exactly one slot where it may be stored,
+ * colliding keys simply replace each other. Lookups and updates are lock-free.
+ * <p>
+ * Capacity is determined by system property {@value #CAPACITY_PROPERTY} (default {@value #DEFAULT_CAPACITY}),
+ * rounded up to a power of 2. Hit and miss counters can be used to check whether the capacity is adequate:
+ * <pre>
+ *   logger.info("Version cache hits: {}, misses: {}",
+ *           SemanticVersion.canonicalCache.hitCount, SemanticVersion.canonicalCache.missCount)
+ * </pre>
+ */
+public final class SemanticVersionCache {
+
+    public static final String CAPACITY_PROPERTY = "cz.auderis.tools.gradle.semver.cacheCapacity";
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    static final SemanticVersionCache CANONICAL = new SemanticVersionCache(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    SemanticVersionCache(int requestedCapacity) {
+        int capacity = 1;
+        while ((capacity < requestedCapacity) && (capacity < (1 << 20))) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Removes all cached versions and resets the counters
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); ++i) {
+            slots.set(i, null);
+        }
+        hits.set(0L);
+        misses.set(0L);
+    }
+
+    /**
+     * Finds cached version stored with the given specification key
+     *
+     * @param key raw version specification
+     * @return cached version or {@code null}
+     */
+    SemanticVersion get(String key) {
+        final Entry entry = slots.get(slotOf(key));
+        if ((null != entry) && key.equals(entry.key)) {
+            hits.incrementAndGet();
+            return entry.version;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores a freshly parsed version under its raw specification key. The version is also
+     * canonicalized by its rendered form, so that different specifications of equal versions
+     * (e.g. with surrounding whitespace) share the same instance.
+     *
+     * @param key raw version specification
+     * @param version version parsed from {@code key}
+     * @return canonical instance equal to {@code version}
+     */
+    SemanticVersion put(String key, SemanticVersion version) {
+        final String canonicalKey = version.toString();
+        final SemanticVersion canonicalVersion = intern(canonicalKey, version);
+        if (!canonicalKey.equals(key)) {
+            slots.set(slotOf(key), new Entry(key, canonicalVersion));
+        }
+        return canonicalVersion;
+    }
+
+    /**
+     * Returns a cached instance equal to {@code version}; if there is none, {@code version} itself
+     * is cached and returned.
+     *
+     * @param version version to canonicalize
+     * @return canonical instance equal to {@code version}
+     */
+    SemanticVersion canonicalize(SemanticVersion version) {
+        final String key = version.toString();
+        final SemanticVersion cached = get(key);
+        if (null != cached) {
+            return cached;
+        }
+        return intern(key, version);
+    }
+
+    private SemanticVersion intern(String key, SemanticVersion version) {
+        final int slot = slotOf(key);
+        final Entry current = slots.get(slot);
+        if ((null != current) && key.equals(current.key)) {
+            return current.version;
+        }
+        if (slots.compareAndSet(slot, current, new Entry(key, version))) {
+            return version;
+        }
+        // Another thread updated the slot in the meantime
+        final Entry winner = slots.get(slot);
+        return ((null != winner) && key.equals(winner.key)) ? winner.version : version;
+    }
+
+    private int slotOf(String key) {
+        final int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static final class Entry {
+        final String key;
+        final SemanticVersion version;
+
+        Entry(String key, SemanticVersion version) {
+            this.key = key;
+            this.version = version;
+        }
+    }
+
+}
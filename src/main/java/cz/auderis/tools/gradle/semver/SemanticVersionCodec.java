@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectStreamException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary encoding of {@link SemanticVersion}. The encoded form consists of:
+ * <ul>
+ * <li>major, minor and patch numbers as unsigned LEB128 varints</li>
+ * <li>number of pre-release identifiers as a varint, followed by the identifiers</li>
+ * <li>number of build metadata identifiers as a varint, followed by the identifiers</li>
+ * </ul>
+ * Every identifier is stored as its length (varint) followed by its ASCII characters.
+ * A plain release version such as {@code 1.2.3} therefore takes 5 bytes.
+ */
+final class SemanticVersionCodec {
+
+    private static final int MAX_IDS = 1 << 16;
+    private static final int MAX_DATA_LENGTH = 1 << 20;
+
+    private SemanticVersionCodec() {
+        throw new AssertionError();
+    }
+
+    static byte[] encode(SemanticVersion version) {
+        final byte[] result = new byte[encodedSize(version)];
+        final ByteBuffer buffer = ByteBuffer.wrap(result);
+        writeVarint(buffer, version.major);
+        writeVarint(buffer, version.minor);
+        writeVarint(buffer, version.patch);
+        writeIds(buffer, version.preReleaseIdentifiers);
+        writeIds(buffer, version.buildMetadataIdentifiers);
+        assert !buffer.hasRemaining();
+        return result;
+    }
+
+    /**
+     * Decodes a version starting at the current position of the buffer; the position
+     * is advanced past the encoded version
+     *
+     * @param buffer source of encoded data
+     * @return decoded version
+     * @throws IllegalArgumentException when the data do not represent a valid version
+     */
+    static SemanticVersion decode(ByteBuffer buffer) {
+        try {
+            final int major = readVarint(buffer);
+            final int minor = readVarint(buffer);
+            final int patch = readVarint(buffer);
+            final SemanticVersion result = new SemanticVersion(major, minor, patch);
+            result.preReleaseIdentifiers = readIds(buffer);
+            result.buildMetadataIdentifiers = readIds(buffer);
+            result.updatePrecedenceKey();
+            return result;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated semantic version data", e);
+        }
+    }
+
+    static boolean canEncode(SemanticVersion version) {
+        return (version.major >= 0) && (version.minor >= 0) && (version.patch >= 0);
+    }
+
+    static int encodedSize(SemanticVersion version) {
+        if (!canEncode(version)) {
+            // Result of an overflow, e.g. incrementMajorVersion() of 2147483647.0.0
+            throw new IllegalStateException("Cannot encode semantic version with negative number: "
+                    + version.major + '.' + version.minor + '.' + version.patch);
+        }
+        return varintSize(version.major) + varintSize(version.minor) + varintSize(version.patch)
+                + idsSize(version.preReleaseIdentifiers) + idsSize(version.buildMetadataIdentifiers);
+    }
+
+    private static int idsSize(String[] ids) {
+        int size = varintSize(ids.length);
+        for (final String id : ids) {
+            size += varintSize(id.length()) + id.length();
+        }
+        return size;
+    }
+
+    private static void writeIds(ByteBuffer buffer, String[] ids) {
+        writeVarint(buffer, ids.length);
+        for (final String id : ids) {
+            final int length = id.length();
+            writeVarint(buffer, length);
+            for (int i = 0; i < length; ++i) {
+                buffer.put((byte) id.charAt(i));
+            }
+        }
+    }
+
+    private static String[] readIds(ByteBuffer buffer) {
+        final int count = readVarint(buffer);
+        if (0 == count) {
+            return SemanticVersion.NO_IDS;
+        } else if (count > MAX_IDS) {
+            throw new IllegalArgumentException("Invalid identifier count: " + count);
+        }
+        final String[] ids = new String[count];
+        for (int i = 0; i < count; ++i) {
+            final int length = readVarint(buffer);
+            if (length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            final char[] chars = new char[length];
+            for (int j = 0; j < length; ++j) {
+                chars[j] = (char) (buffer.get() & 0xFF);
+            }
+            final String id = new String(chars);
+            if (!SemanticVersionParser.isValidIdentifier(id)) {
+                throw new IllegalArgumentException("Invalid identifier: " + id);
+            }
+            ids[i] = SemanticVersionParser.internIdentifier(id);
+        }
+        return ids;
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while (0 != (value & ~0x7F)) {
+            value >>>= 7;
+            ++size;
+        }
+        return size;
+    }
+
+    private static void writeVarint(ByteBuffer buffer, int value) {
+        while (0 != (value & ~0x7F)) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (0 == (b & 0x80)) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid number in semantic version data");
+    }
+
+    /**
+     * Serialized form of {@link SemanticVersion}, used in place of the default serialization
+     * of its fields whenever the version {@link #canEncode(SemanticVersion) can be encoded}. Deserialized versions are canonicalized the same way as in
+     * {@link SemanticVersion#canonical(String)}.
+     */
+    static final class ExternalForm implements Externalizable {
+        private static final long serialVersionUID = 1L;
+        private static final int FORMAT_VERSION = 1;
+
+        private SemanticVersion version;
+
+        public ExternalForm() {
+            // Used by deserialization
+        }
+
+        ExternalForm(SemanticVersion version) {
+            this.version = version;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            final byte[] data = encode(version);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            final int format = in.readUnsignedByte();
+            if (FORMAT_VERSION != format) {
+                throw new InvalidObjectException("Unsupported semantic version format " + format);
+            }
+            final int length = in.readInt();
+            if ((length < 0) || (length > MAX_DATA_LENGTH)) {
+                throw new InvalidObjectException("Invalid semantic version data length " + length);
+            }
+            final byte[] data = new byte[length];
+            in.readFully(data);
+            try {
+                version = decode(ByteBuffer.wrap(data));
+            } catch (IllegalArgumentException e) {
+                final InvalidObjectException error = new InvalidObjectException(e.getMessage());
+                error.initCause(e);
+                throw error;
+            }
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            return SemanticVersionCache.CANONICAL.canonicalize(version);
+        }
+    }
+
+}
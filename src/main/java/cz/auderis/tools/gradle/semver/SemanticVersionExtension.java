@@ -17,27 +17,68 @@
 package cz.auderis.tools.gradle.semver;
 
 import org.gradle.StartParameter;
+import org.gradle.api.Action;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
-import java.util.regex.Matcher;
-
-import static cz.auderis.tools.gradle.semver.SemanticVersion.PATTERN;
-import static cz.auderis.tools.gradle.semver.SemanticVersion.parseSpecification;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SemanticVersionExtension {
 
-    final Project project;
+    static final String URL_CACHE_PATH = "caches/auderis-semantic-version/url";
+
+    private static final Logger LOG = Logging.getLogger(SemanticVersionExtension.class);
+
+    // Only values captured from the project are kept, the extension does not refer to the project model
+    final File projectDir;
+    final Map<String, String> projectProperties;
     final VersionOverrideSourceList overrideSources;
+    final VersionUrlLoader urlLoader;
+    final SharedVersionService sharedService;
+    private final AtomicReference<ResolvedOverride> resolvedOverride;
+    private long sourceHedgeDelay;
+    private boolean watchVersionFiles;
+    private boolean lazyVersion;
 
     public SemanticVersionExtension(Project project) {
-        this.project = project;
+        final StartParameter startParameter = project.getGradle().getStartParameter();
+        this.projectDir = project.getProjectDir();
+        this.projectProperties = Collections.unmodifiableMap(new HashMap<>(startParameter.getProjectProperties()));
         final VersionOverrideSource defaultOverride = new StartParameterVersionOverride(
-                project.getGradle().getStartParameter(),
+                projectProperties,
                 StartParameterVersionOverride.DEFAULT_PARAMETER_NAME
         );
         this.overrideSources = new VersionOverrideSourceList(defaultOverride);
+        this.sharedService = SharedVersionService.forBuild(project.getGradle());
+        this.resolvedOverride = new AtomicReference<>();
+        final File userHome = project.getGradle().getGradleUserHomeDir();
+        this.urlLoader = new VersionUrlLoader(new File(userHome, URL_CACHE_PATH));
+        this.urlLoader.setOffline(startParameter.isOffline());
+        this.sourceHedgeDelay = VersionSourceResolver.DEFAULT_HEDGE_DELAY;
+        this.watchVersionFiles = startParameter.isContinuous();
+    }
+
+    /**
+     * Returns loader used for versions obtained from URLs by {@link BlankVersion}
+     *
+     * @return URL loader with cache in Gradle user home
+     */
+    public VersionUrlLoader getUrlLoader() {
+        return urlLoader;
+    }
+
+    public void urlLoader(Action<? super VersionUrlLoader> configuration) {
+        configuration.execute(urlLoader);
     }
 
     /**
@@ -53,11 +94,7 @@ public class SemanticVersionExtension {
         if (null == specification) {
             throw new NullPointerException("Semantic version is not specified");
         }
-        final Matcher specMatcher = PATTERN.matcher(specification);
-        if (!specMatcher.matches()) {
-            throw new InvalidUserDataException("Invalid semantic version specification: " + specification);
-        }
-        final SemanticVersion semanticVersion = parseSpecification(specMatcher);
+        final SemanticVersion semanticVersion = SemanticVersionParser.parseSpecification(specification);
         return semanticVersion;
     }
 
@@ -91,6 +128,78 @@ public class SemanticVersionExtension {
         return null;
     }
 
+    public long getSourceHedgeDelay() {
+        return sourceHedgeDelay;
+    }
+
+    /**
+     * Sets the delay after which {@link BlankVersion#fromFirstOf(Object...)} queries the next source
+     * while the previous one did not respond yet
+     *
+     * @param sourceHedgeDelay delay in milliseconds
+     */
+    public void setSourceHedgeDelay(long sourceHedgeDelay) {
+        if (sourceHedgeDelay < 0L) {
+            throw new IllegalArgumentException("invalid hedge delay: " + sourceHedgeDelay);
+        }
+        this.sourceHedgeDelay = sourceHedgeDelay;
+    }
+
+    public boolean isLazyVersion() {
+        return lazyVersion;
+    }
+
+    /**
+     * Defines whether {@link BlankVersion} sets {@code project.version} to a {@link LazyVersion},
+     * which reads the version source only when the version is requested for the first time
+     *
+     * @param lazyVersion {@code true} to resolve project version lazily
+     */
+    public void setLazyVersion(boolean lazyVersion) {
+        this.lazyVersion = lazyVersion;
+    }
+
+    public boolean isWatchVersionFiles() {
+        return watchVersionFiles;
+    }
+
+    /**
+     * Defines whether version files used by {@link BlankVersion} are watched for changes and kept
+     * in memory, see {@link VersionFileWatcher}. Enabled by default in continuous builds.
+     *
+     * @param watchVersionFiles {@code true} to watch version files
+     */
+    public void setWatchVersionFiles(boolean watchVersionFiles) {
+        this.watchVersionFiles = watchVersionFiles;
+    }
+
+    /**
+     * Returns shared watcher of a version file. The watcher stays open while builds use it; listeners
+     * added to it directly are not removed automatically, see {@link #onVersionFileChange(Object, VersionFileWatcher.Listener)}.
+     *
+     * @param versionHolder version file as {@link File}, {@link Path}, {@link URI} with {@code file} scheme
+     *                      or text path; {@link Callable} (including Groovy closure) is invoked to obtain
+     *                      the file. Relative paths are resolved against the project directory.
+     * @return watcher of the file
+     */
+    public VersionFileWatcher watch(Object versionHolder) {
+        return sharedService.watch(resolveFile(versionHolder));
+    }
+
+    /**
+     * Registers listener of version changes in a watched version file for the duration of this build;
+     * in continuous builds the registration is repeated by every build, so listeners do not accumulate
+     *
+     * @param versionHolder version file, as in {@link #watch(Object)}
+     * @param listener listener to be notified
+     */
+    public void onVersionFileChange(Object versionHolder, VersionFileWatcher.Listener listener) {
+        if (null == listener) {
+            throw new NullPointerException("Listener is not specified");
+        }
+        sharedService.addListener(watch(versionHolder), listener);
+    }
+
     public void allowOverrideFromEnvironment(String environmentVariableName) {
         if (null == environmentVariableName) {
             throw new NullPointerException("undefined environment variable name");
@@ -98,7 +207,7 @@ public class SemanticVersionExtension {
             throw new IllegalArgumentException("invalid environment variable name: ''");
         }
         final EnvironmentVersionOverride envOverride = new EnvironmentVersionOverride(environmentVariableName);
-        overrideSources.add(envOverride);
+        addOverrideSource(envOverride);
     }
 
     public void allowOverrideFromParameter(String propertyName) {
@@ -107,31 +216,102 @@ public class SemanticVersionExtension {
         } else if (propertyName.isEmpty()) {
             throw new IllegalArgumentException("invalid start parameter name: ''");
         }
-        final StartParameter params = project.getGradle().getStartParameter();
-        final StartParameterVersionOverride paramOverride = new StartParameterVersionOverride(params, propertyName);
-        overrideSources.add(paramOverride);
+        final StartParameterVersionOverride paramOverride = new StartParameterVersionOverride(projectProperties, propertyName);
+        addOverrideSource(paramOverride);
+    }
+
+    private void addOverrideSource(VersionOverrideSource overrideSource) {
+        overrideSources.add(overrideSource);
+        // Later resolutions have to take the new source into account
+        if (null != resolvedOverride.getAndSet(null)) {
+            LOG.warn("Version override source {} added after the project version was resolved, "
+                    + "the version already resolved is not affected", overrideSource);
+        }
     }
 
+    /**
+     * Returns version override; the override sources are evaluated only once and the result is memoized
+     * until another override source is added. The list of sources is frozen after project evaluation.
+     *
+     * @return version override or {@code null} when no override source is active
+     */
     SemanticVersion getVersionOverride() {
-        VersionOverrideSource overrideSource = null;
-        for (final VersionOverrideSource overrideCandidate : overrideSources) {
-            if (overrideCandidate.isActive()) {
-                overrideSource = overrideCandidate;
-                break;
+        ResolvedOverride resolved = resolvedOverride.get();
+        if (null == resolved) {
+            final VersionOverrideSource[] sources = overrideSources.toArray(new VersionOverrideSource[overrideSources.size()]);
+            final String[] sourceNames = new String[sources.length];
+            for (int i = 0; i < sources.length; ++i) {
+                sourceNames[i] = sources[i].getName();
             }
+            final SemanticVersion version = sharedService.override(sourceNames, new Callable<SemanticVersion>() {
+                @Override
+                public SemanticVersion call() {
+                    return resolveVersionOverride(sources);
+                }
+            });
+            // Concurrent resolutions yield the same result, publish the first one
+            resolvedOverride.compareAndSet(null, new ResolvedOverride(version));
+            resolved = resolvedOverride.get();
         }
-        if (null == overrideSource) {
-            return null;
+        return resolved.version;
+    }
+
+    private SemanticVersion resolveVersionOverride(VersionOverrideSource[] sources) {
+        for (final VersionOverrideSource overrideSource : sources) {
+            // Active source is expected to provide specification, check activity only when there is none
+            final String overrideSpec = overrideSource.getVersionSpecification();
+            if (null == overrideSpec) {
+                if (overrideSource.isActive()) {
+                    return null;
+                }
+                continue;
+            }
+            final SemanticVersion overrideVersion = SemanticVersionParser.parse(overrideSpec, 0, overrideSpec.length());
+            if (null == overrideVersion) {
+                throw new InvalidUserDataException("Invalid semantic version: " + overrideSource);
+            }
+            LOG.info("Using project version override: {}", overrideSource);
+            return overrideVersion;
         }
-        final String overrideSpec = overrideSource.getVersionSpecification();
-        if (null == overrideSpec) {
-            return null;
+        return null;
+    }
+
+    private Path resolveFile(Object fileSpec) {
+        Object spec = fileSpec;
+        while (spec instanceof Callable) {
+            try {
+                spec = ((Callable<?>) spec).call();
+            } catch (Exception e) {
+                throw new InvalidUserDataException("Cannot obtain version holder file from " + fileSpec, e);
+            }
+        }
+        final Path path;
+        if (null == spec) {
+            throw new NullPointerException("Version holder file is not specified");
+        } else if (spec instanceof Path) {
+            path = (Path) spec;
+        } else if (spec instanceof File) {
+            path = ((File) spec).toPath();
+        } else if (spec instanceof URI) {
+            final URI uri = (URI) spec;
+            if (!"file".equals(uri.getScheme())) {
+                throw new InvalidUserDataException("Version holder file must be a local file: " + uri);
+            }
+            path = new File(uri).toPath();
+        } else if (spec instanceof CharSequence) {
+            path = new File(spec.toString()).toPath();
+        } else {
+            throw new InvalidUserDataException("Unsupported version holder file notation: " + spec);
         }
-        if (!SemanticVersion.isValid(overrideSpec)) {
-            throw new InvalidUserDataException("Invalid semantic version: " + overrideSource);
+        return projectDir.toPath().resolve(path);
+    }
+
+    private static final class ResolvedOverride {
+        final SemanticVersion version;
+
+        ResolvedOverride(SemanticVersion version) {
+            this.version = version;
         }
-        project.getLogger().info("Using project version override: {}", overrideSource);
-        return SemanticVersion.parse(overrideSpec);
     }
 
 }
@@ -0,0 +1,504 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.InvalidUserDataException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single-pass scanner of semantic version specifications. It accepts the same language
+ * as {@link SemanticVersion#PATTERN} combined with identifier rules applied when parsing
+ * pre-release and build metadata parts:
+ * <ul>
+ * <li>leading and trailing whitespace is ignored</li>
+ * <li>major, minor and patch numbers must not have leading zeros and must fit into {@code int}</li>
+ * <li>identifiers consist of ASCII letters, digits and hyphens, they must not start with a hyphen
+ * and the only identifier allowed to start with {@code 0} is {@code 0} itself</li>
+ * </ul>
+ * The scanner does not use regular expressions and does not allocate anything
+ * apart from the resulting version object and its identifier arrays. Frequently used
+ * identifiers (such as {@code SNAPSHOT} or single digits) are not copied from the source
+ * text, shared constant instances are used instead.
+ */
+final class SemanticVersionParser {
+
+    static final int VALID = 0;
+    static final int INVALID_FORMAT = 1;
+    static final int INVALID_PRE_RELEASE = 2;
+    static final int INVALID_BUILD_METADATA = 3;
+
+    private static final String[] COMMON_IDS = {
+            SemanticVersion.SNAPSHOT_ID, "alpha", "beta", "rc", "RC", "dev", "final", "release", "milestone", "M",
+    };
+    private static final String[] DIGIT_IDS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+
+    private SemanticVersionParser() {
+        throw new AssertionError();
+    }
+
+    static boolean isValid(CharSequence text, int start, int end) {
+        return VALID == scan(text, start, end, null);
+    }
+
+    /**
+     * Parses semantic version from the given part of text
+     *
+     * @param text source text
+     * @param start index of the first character of version specification
+     * @param end index after the last character of version specification
+     * @return parsed version or {@code null} when the specification is not valid
+     */
+    static SemanticVersion parse(CharSequence text, int start, int end) {
+        final SemanticVersion result = new SemanticVersion(0, 0, 0);
+        final int status = scan(text, start, end, result);
+        return (VALID == status) ? result : null;
+    }
+
+    /**
+     * Parses semantic version specification, reporting problems the same way as
+     * {@link SemanticVersion#is(String)}
+     *
+     * @param specification text representation of semantic version
+     * @return parsed version
+     * @throws InvalidUserDataException when {@code specification} does not conform to semantic version rules
+     */
+    static SemanticVersion parseSpecification(CharSequence specification) {
+        assert null != specification;
+        return parseSpecification(specification, 0, specification.length());
+    }
+
+    static SemanticVersion parseSpecification(CharSequence text, int start, int end) {
+        assert null != text;
+        final SemanticVersion result = new SemanticVersion(0, 0, 0);
+        final int status = scan(text, start, end, result);
+        if (VALID == status) {
+            return result;
+        }
+        final CharSequence specification = text.subSequence(start, end);
+        switch (status) {
+            case INVALID_PRE_RELEASE:
+                throw new InvalidUserDataException("Invalid pre-release part in semantic version: " + specification);
+            case INVALID_BUILD_METADATA:
+                throw new InvalidUserDataException("Invalid build metadata part in semantic version: " + specification);
+            default:
+                throw new InvalidUserDataException("Invalid semantic version specification: " + specification);
+        }
+    }
+
+    static void checkRange(CharSequence text, int start, int end) {
+        if (null == text) {
+            throw new NullPointerException("Semantic version is not specified");
+        } else if ((start < 0) || (start > end) || (end > text.length())) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + ".." + end + " of text with length " + text.length());
+        }
+    }
+
+    /**
+     * Checks a single identifier for use in {@code with*Identifier} methods; it is equivalent
+     * to matching {@link SemanticVersion#IDENTIFIER_PATTERN}.
+     *
+     * @param id identifier to check
+     * @return {@code true} if the identifier is acceptable
+     */
+    static boolean isValidIdentifier(CharSequence id) {
+        assert null != id;
+        final int length = id.length();
+        if (0 == length) {
+            return false;
+        }
+        final char first = id.charAt(0);
+        if (('-' == first) || !isIdentifierChar(first) || ('-' == id.charAt(length - 1))) {
+            return false;
+        }
+        for (int i = 1; i < length - 1; ++i) {
+            if (!isIdentifierChar(id.charAt(i))) {
+                return false;
+            }
+        }
+        return isIdentifierChar(id.charAt(length - 1));
+    }
+
+    static int scan(CharSequence text, int start, int end, SemanticVersion target) {
+        final int status = scanInto(text, start, end, target);
+        if ((VALID == status) && (null != target)) {
+            target.updatePrecedenceKey();
+        }
+        return status;
+    }
+
+    private static int scanInto(CharSequence text, int start, int end, SemanticVersion target) {
+        assert null != text;
+        assert (0 <= start) && (start <= end) && (end <= text.length());
+        int pos = skipWhitespace(text, start, end);
+        final int limit = trimWhitespace(text, pos, end);
+        // Main part, dot-separated major-minor-patch
+        long part = scanNumber(text, pos, limit);
+        if ((part < 0L) || !hasCharAt(text, (int) part, limit, '.')) {
+            return INVALID_FORMAT;
+        }
+        final int major = (int) (part >>> 32);
+        part = scanNumber(text, (int) part + 1, limit);
+        if ((part < 0L) || !hasCharAt(text, (int) part, limit, '.')) {
+            return INVALID_FORMAT;
+        }
+        final int minor = (int) (part >>> 32);
+        part = scanNumber(text, (int) part + 1, limit);
+        if (part < 0L) {
+            return INVALID_FORMAT;
+        }
+        final int patch = (int) (part >>> 32);
+        pos = (int) part;
+        if (null != target) {
+            target.major = major;
+            target.minor = minor;
+            target.patch = patch;
+        }
+        if (pos == limit) {
+            return VALID;
+        }
+        // Optional pre-release identifiers preceded by -
+        if ('-' == text.charAt(pos)) {
+            final int idStart = pos + 1;
+            pos = scanIdentifiers(text, idStart, limit, true);
+            if (pos < 0) {
+                return INVALID_PRE_RELEASE;
+            }
+            if (null != target) {
+                target.preReleaseIdentifiers = extractIdentifiers(text, idStart, pos);
+            }
+            if (pos == limit) {
+                return VALID;
+            }
+        }
+        // Optional build metadata identifiers preceded by +
+        if ('+' != text.charAt(pos)) {
+            return INVALID_FORMAT;
+        }
+        final int idStart = pos + 1;
+        pos = scanIdentifiers(text, idStart, limit, false);
+        if (pos < 0) {
+            return INVALID_BUILD_METADATA;
+        }
+        if (null != target) {
+            target.buildMetadataIdentifiers = extractIdentifiers(text, idStart, pos);
+        }
+        return VALID;
+    }
+
+    /**
+     * Compares precedence of two valid version specifications in place. The result has the same
+     * sign as {@link SemanticVersion#compareTo(SemanticVersion)} applied to the parsed versions.
+     *
+     * @param text1 first valid version specification
+     * @param text2 second valid version specification
+     * @return negative number, zero or positive number if the first version has lower, equal
+     *         or higher precedence, respectively
+     */
+    static int comparePrecedence(CharSequence text1, CharSequence text2) {
+        int pos1 = skipWhitespace(text1, 0, text1.length());
+        int pos2 = skipWhitespace(text2, 0, text2.length());
+        final int limit1 = trimWhitespace(text1, pos1, text1.length());
+        final int limit2 = trimWhitespace(text2, pos2, text2.length());
+        // Main part, dot-separated major-minor-patch
+        for (int part = 0; part < 3; ++part) {
+            final long number1 = scanNumber(text1, pos1, limit1);
+            final long number2 = scanNumber(text2, pos2, limit2);
+            assert (number1 >= 0L) && (number2 >= 0L) : "Invalid version specification";
+            final long value1 = number1 >>> 32;
+            final long value2 = number2 >>> 32;
+            if (value1 != value2) {
+                return (value1 < value2) ? -1 : 1;
+            }
+            // Skip separator following the number
+            pos1 = (int) number1 + 1;
+            pos2 = (int) number2 + 1;
+        }
+        // Pre-release identifiers; only they are relevant for precedence
+        final boolean preRelease1 = (pos1 <= limit1) && ('-' == text1.charAt(pos1 - 1));
+        final boolean preRelease2 = (pos2 <= limit2) && ('-' == text2.charAt(pos2 - 1));
+        if (!preRelease1 || !preRelease2) {
+            return (preRelease1 == preRelease2) ? 0 : (preRelease1 ? -1 : 1);
+        }
+        final int end1 = findChar(text1, pos1, limit1, '+');
+        final int end2 = findChar(text2, pos2, limit2, '+');
+        while (true) {
+            int idEnd1 = pos1;
+            boolean numeric1 = true;
+            while ((idEnd1 < end1) && ('.' != text1.charAt(idEnd1))) {
+                numeric1 &= isDigit(text1.charAt(idEnd1++));
+            }
+            int idEnd2 = pos2;
+            boolean numeric2 = true;
+            while ((idEnd2 < end2) && ('.' != text2.charAt(idEnd2))) {
+                numeric2 &= isDigit(text2.charAt(idEnd2++));
+            }
+            if (numeric1 != numeric2) {
+                return numeric1 ? -1 : 1;
+            }
+            final int length1 = idEnd1 - pos1;
+            final int length2 = idEnd2 - pos2;
+            if (numeric1 && (length1 != length2)) {
+                // Numeric identifiers have no leading zeros, so longer number is greater
+                return (length1 < length2) ? -1 : 1;
+            }
+            final int commonLength = Math.min(length1, length2);
+            for (int i = 0; i < commonLength; ++i) {
+                final char c1 = text1.charAt(pos1 + i);
+                final char c2 = text2.charAt(pos2 + i);
+                if (c1 != c2) {
+                    return (c1 < c2) ? -1 : 1;
+                }
+            }
+            if (length1 != length2) {
+                return (length1 < length2) ? -1 : 1;
+            }
+            final boolean more1 = idEnd1 < end1;
+            final boolean more2 = idEnd2 < end2;
+            if (!more1 || !more2) {
+                return (more1 == more2) ? 0 : (more1 ? 1 : -1);
+            }
+            pos1 = idEnd1 + 1;
+            pos2 = idEnd2 + 1;
+        }
+    }
+
+    /**
+     * Parses decimal number without leading zeros that fits into {@code int}
+     *
+     * @param text text of the number
+     * @return value of the number or -1 if the text is not a valid number
+     */
+    static long parseNumber(CharSequence text) {
+        final long scanned = scanNumber(text, 0, text.length());
+        if ((scanned < 0L) || ((int) scanned != text.length())) {
+            return -1L;
+        }
+        return scanned >>> 32;
+    }
+
+    /**
+     * Scans decimal number without leading zeros.
+     *
+     * @return -1 if there is no valid number at {@code pos}; otherwise number value
+     *         in upper 32 bits and position after the number in lower 32 bits
+     */
+    private static long scanNumber(CharSequence text, int pos, int limit) {
+        if (pos >= limit) {
+            return -1L;
+        }
+        char c = text.charAt(pos);
+        if ('0' == c) {
+            return pos + 1;
+        } else if ((c < '1') || (c > '9')) {
+            return -1L;
+        }
+        long value = c - '0';
+        while (++pos < limit) {
+            c = text.charAt(pos);
+            if ((c < '0') || (c > '9')) {
+                break;
+            }
+            value = 10L * value + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1L;
+            }
+        }
+        return (value << 32) | pos;
+    }
+
+    /**
+     * Scans dot-separated identifier sequence.
+     *
+     * @return position after the sequence (either {@code limit} or position of {@code +} when
+     *         {@code stopAtPlus} is set) or -1 if the sequence is invalid
+     */
+    private static int scanIdentifiers(CharSequence text, int pos, int limit, boolean stopAtPlus) {
+        while (pos < limit) {
+            final int idStart = pos;
+            final char first = text.charAt(pos);
+            if (('-' == first) || !isIdentifierChar(first)) {
+                return -1;
+            }
+            while ((++pos < limit) && isIdentifierChar(text.charAt(pos))) {
+                // Skip identifier characters
+            }
+            if (('0' == first) && (pos - idStart > 1)) {
+                return -1;
+            }
+            if (pos == limit) {
+                return pos;
+            }
+            final char separator = text.charAt(pos);
+            if (stopAtPlus && ('+' == separator)) {
+                return pos;
+            } else if ('.' != separator) {
+                return -1;
+            }
+            ++pos;
+        }
+        // Empty identifier
+        return -1;
+    }
+
+    /**
+     * Splits already validated dot-separated identifier sequence into an array of exact size
+     */
+    private static String[] extractIdentifiers(CharSequence text, int start, int end) {
+        int count = 1;
+        for (int i = start; i < end; ++i) {
+            if ('.' == text.charAt(i)) {
+                ++count;
+            }
+        }
+        final String[] ids = new String[count];
+        int idStart = start;
+        int n = 0;
+        for (int i = start; i <= end; ++i) {
+            if ((i == end) || ('.' == text.charAt(i))) {
+                final String common = commonIdentifier(text, idStart, i);
+                ids[n++] = (null != common) ? common : text.subSequence(idStart, i).toString();
+                idStart = i + 1;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns shared instance of the given identifier if it is a frequently used one
+     *
+     * @param id identifier
+     * @return shared instance equal to {@code id} or {@code id} itself
+     */
+    static String internIdentifier(String id) {
+        final String common = commonIdentifier(id, 0, id.length());
+        return (null != common) ? common : id;
+    }
+
+    private static String commonIdentifier(CharSequence text, int start, int end) {
+        final int length = end - start;
+        if (1 == length) {
+            final char c = text.charAt(start);
+            if ((c >= '0') && (c <= '9')) {
+                return DIGIT_IDS[c - '0'];
+            }
+        }
+        for (final String common : COMMON_IDS) {
+            if ((common.length() == length) && regionMatches(text, start, common)) {
+                return common;
+            }
+        }
+        return null;
+    }
+
+    private static boolean regionMatches(CharSequence text, int start, String expected) {
+        for (int i = 0; i < expected.length(); ++i) {
+            if (text.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int skipWhitespace(CharSequence text, int pos, int limit) {
+        while ((pos < limit) && isWhitespace(text.charAt(pos))) {
+            ++pos;
+        }
+        return pos;
+    }
+
+    static int trimWhitespace(CharSequence text, int start, int limit) {
+        while ((limit > start) && isWhitespace(text.charAt(limit - 1))) {
+            --limit;
+        }
+        return limit;
+    }
+
+    private static int findChar(CharSequence text, int pos, int limit, char expected) {
+        while ((pos < limit) && (expected != text.charAt(pos))) {
+            ++pos;
+        }
+        return pos;
+    }
+
+    private static boolean isDigit(char c) {
+        return (c >= '0') && (c <= '9');
+    }
+
+    private static boolean hasCharAt(CharSequence text, int pos, int limit, char expected) {
+        return (pos < limit) && (expected == text.charAt(pos));
+    }
+
+    /**
+     * Read-only view of bytes in a buffer as a sequence of characters. Every byte is mapped
+     * to a character with the same code, so bytes outside of the ASCII range (including
+     * parts of UTF-8 multi-byte sequences) are never accepted by the scanner. The buffer
+     * position is not modified.
+     */
+    static final class ByteSequence implements CharSequence {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        ByteSequence(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((index < 0) || (index >= length)) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            checkRange(this, start, end);
+            return new ByteSequence(buffer, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            final char[] chars = new char[length];
+            for (int i = 0; i < length; ++i) {
+                chars[i] = (char) (buffer.get(offset + i) & 0xFF);
+            }
+            return new String(chars);
+        }
+    }
+
+    static boolean isIdentifierChar(char c) {
+        return ((c >= '0') && (c <= '9'))
+                || ((c >= 'A') && (c <= 'Z'))
+                || ((c >= 'a') && (c <= 'z'))
+                || ('-' == c);
+    }
+
+    static boolean isWhitespace(char c) {
+        // Same set as \s in java.util.regex
+        return (' ' == c) || ('\t' == c) || ('\n' == c) || ('\u000B' == c) || ('\f' == c) || ('\r' == c);
+    }
+
+}
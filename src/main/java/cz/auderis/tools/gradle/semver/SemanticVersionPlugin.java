@@ -16,6 +16,7 @@
 
 package cz.auderis.tools.gradle.semver;
 
+import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
@@ -42,6 +43,7 @@ public class SemanticVersionPlugin implements Plugin<Project> {
     private void createSemanticVersionExtension(Project project) {
         final ExtensionContainer extensions = project.getExtensions();
         final SemanticVersionExtension ext = extensions.create(EXTENSION_NAME, SemanticVersionExtension.class, project);
+        project.afterEvaluate(new FreezeOverrideSourcesAction(ext));
     }
 
     private void createVersionCheckTask(Project project) {
@@ -59,12 +61,26 @@ public class SemanticVersionPlugin implements Plugin<Project> {
             project.setVersion(blankVersion);
             project.getLogger().debug("Version of {} set to blank semantic version", project);
         } else if (version instanceof CharSequence) {
-            final SemanticVersion versionInstance = SemanticVersion.parse(version.toString());
+            final SharedVersionService sharedService = SharedVersionService.forBuild(project.getGradle());
+            final SemanticVersion versionInstance = sharedService.parse(version.toString());
             project.setVersion(versionInstance);
             project.getLogger().debug("Version of {} changed to semantic version instance: {}", project, versionInstance);
         }
     }
 
+    private static final class FreezeOverrideSourcesAction implements Action<Project> {
+        private final SemanticVersionExtension extension;
+
+        FreezeOverrideSourcesAction(SemanticVersionExtension extension) {
+            this.extension = extension;
+        }
+
+        @Override
+        public void execute(Project project) {
+            extension.overrideSources.freeze();
+        }
+    }
+
     private static final class DefaultConfigurationPresentSpec implements Spec<Task> {
         @Override
         public boolean isSatisfiedBy(Task task) {
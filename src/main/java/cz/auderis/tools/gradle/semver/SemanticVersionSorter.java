@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable sorting of semantic versions by precedence. Versions are ordered by LSD radix
+ * passes over their precedence keys (see {@link SemanticVersion#updatePrecedenceKey()}),
+ * i.e. by major, minor and patch numbers and release status. Comparison sorting is used
+ * only for groups of pre-release versions that share the same major-minor-patch triple.
+ */
+final class SemanticVersionSorter {
+
+    static final int COMPARISON_SORT_THRESHOLD = 48;
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 14;
+
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    // 4 digits of patch key (patch number and release flag) followed by 8 digits of major-minor key
+    private static final int PATCH_DIGITS = 4;
+    private static final int PASSES = PATCH_DIGITS + 8;
+
+    private SemanticVersionSorter() {
+        throw new AssertionError();
+    }
+
+    static void sort(SemanticVersion[] versions) {
+        checkElements(versions);
+        sort(versions, 0, versions.length, null);
+    }
+
+    static void parallelSort(SemanticVersion[] versions) {
+        checkElements(versions);
+        final int length = versions.length;
+        if (length <= PARALLEL_SORT_THRESHOLD) {
+            sort(versions, 0, length, null);
+            return;
+        }
+        final SemanticVersion[] buffer = new SemanticVersion[length];
+        SharedPool.get().invoke(new SortTask(versions, buffer, 0, length));
+    }
+
+    /**
+     * Sorts range of the array
+     *
+     * @param versions array to sort
+     * @param from index of the first element of the range
+     * @param to index after the last element of the range
+     * @param buffer auxiliary array with at least {@code to} elements or {@code null}
+     */
+    static void sort(SemanticVersion[] versions, int from, int to, SemanticVersion[] buffer) {
+        final int length = to - from;
+        if (length < 2) {
+            return;
+        } else if (length < COMPARISON_SORT_THRESHOLD) {
+            Arrays.sort(versions, from, to, SemanticVersion.OrderBy.NORMAL);
+            return;
+        }
+        if (null == buffer) {
+            buffer = new SemanticVersion[to];
+        }
+        // Build histograms of all digits in a single pass
+        final int[][] counts = new int[PASSES][RADIX];
+        for (int i = from; i < to; ++i) {
+            final SemanticVersion version = versions[i];
+            for (int pass = 0; pass < PASSES; ++pass) {
+                ++counts[pass][digitOf(version, pass)];
+            }
+        }
+        SemanticVersion[] source = versions;
+        SemanticVersion[] target = buffer;
+        for (int pass = 0; pass < PASSES; ++pass) {
+            final int[] count = counts[pass];
+            if (count[digitOf(source[from], pass)] == length) {
+                // All elements share the same digit, the pass would not change anything
+                continue;
+            }
+            int offset = from;
+            for (int d = 0; d < RADIX; ++d) {
+                final int c = count[d];
+                count[d] = offset;
+                offset += c;
+            }
+            for (int i = from; i < to; ++i) {
+                final SemanticVersion version = source[i];
+                target[count[digitOf(version, pass)]++] = version;
+            }
+            final SemanticVersion[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != versions) {
+            System.arraycopy(source, from, versions, from, length);
+        }
+        sortPreReleaseGroups(versions, from, to);
+    }
+
+    private static void sortPreReleaseGroups(SemanticVersion[] versions, int from, int to) {
+        int groupStart = from;
+        while (groupStart < to) {
+            final SemanticVersion first = versions[groupStart];
+            int groupEnd = groupStart + 1;
+            while ((groupEnd < to)
+                    && (versions[groupEnd].patchKey == first.patchKey)
+                    && (versions[groupEnd].majorMinorKey == first.majorMinorKey)) {
+                ++groupEnd;
+            }
+            if ((groupEnd - groupStart > 1) && (0L == (first.patchKey & 1L))) {
+                Arrays.sort(versions, groupStart, groupEnd, SemanticVersion.OrderBy.NORMAL);
+            }
+            groupStart = groupEnd;
+        }
+    }
+
+    private static int digitOf(SemanticVersion version, int pass) {
+        if (pass < PATCH_DIGITS) {
+            return (int) (version.patchKey >>> (pass * DIGIT_BITS)) & DIGIT_MASK;
+        }
+        return (int) (version.majorMinorKey >>> ((pass - PATCH_DIGITS) * DIGIT_BITS)) & DIGIT_MASK;
+    }
+
+    private static void checkElements(SemanticVersion[] versions) {
+        for (final SemanticVersion version : versions) {
+            if (null == version) {
+                throw new NullPointerException("Sorted versions contain null");
+            }
+        }
+    }
+
+    /**
+     * Sorts halves of a range in parallel and merges them
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final SemanticVersion[] versions;
+        private final SemanticVersion[] buffer;
+        private final int from;
+        private final int to;
+
+        SortTask(SemanticVersion[] versions, SemanticVersion[] buffer, int from, int to) {
+            this.versions = versions;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_SORT_THRESHOLD) {
+                sort(versions, from, to, buffer);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(versions, buffer, from, middle), new SortTask(versions, buffer, middle, to));
+            merge(middle);
+        }
+
+        private void merge(int middle) {
+            if (SemanticVersion.comparePrecedence(versions[middle - 1], versions[middle]) <= 0) {
+                // Halves are already in order
+                return;
+            }
+            System.arraycopy(versions, from, buffer, from, middle - from);
+            int left = from;
+            int right = middle;
+            int target = from;
+            while ((left < middle) && (right < to)) {
+                if (SemanticVersion.comparePrecedence(buffer[left], versions[right]) <= 0) {
+                    versions[target++] = buffer[left++];
+                } else {
+                    versions[target++] = versions[right++];
+                }
+            }
+            System.arraycopy(buffer, left, versions, target, middle - left);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Fork-join pool shared by parallel operations on versions (sorting, batch parsing). The pool
+ * is created on first use and its threads are daemons, so it does not prevent JVM shutdown.
+ */
+final class SharedPool {
+
+    private SharedPool() {
+        throw new AssertionError();
+    }
+
+    static ForkJoinPool get() {
+        return Holder.POOL;
+    }
+
+    private static final class Holder {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+}
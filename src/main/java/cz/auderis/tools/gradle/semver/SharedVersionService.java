@@ -0,0 +1,307 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.GradleException;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Build-scoped service that resolves versions and version overrides once per build. Multi-project
+ * builds, where every project applies the plugin and refers to the same version file or override,
+ * obtain the same immutable version instance; the file is read (or the override evaluated) only by
+ * the first project. Later resolutions of the same source are reported in debug log. Versions loaded
+ * from URLs are shared only by projects whose {@link VersionUrlLoader URL loaders} have the same settings.
+ * <p>
+ * There is one service per {@link Gradle} instance, i.e. per build; in continuous builds every cycle
+ * uses a new service. The service is safe to use from concurrently configured projects; concurrent
+ * resolutions of the same source wait for the first one. Failed resolutions are not remembered.
+ * <p>
+ * The service also tracks version file watchers used by the build and listeners registered by build
+ * scripts; when the build finishes, the listeners are removed and watchers not used by the build are closed.
+ */
+final class SharedVersionService {
+
+    private static final Logger LOG = Logging.getLogger(SharedVersionService.class);
+    private static final Map<Gradle, SharedVersionService> SERVICES = new WeakHashMap<>();
+
+    private final ConcurrentMap<Key, FutureTask<SemanticVersion>> resolutions;
+    final Set<VersionFileWatcher> usedWatchers;
+    private final List<ListenerRegistration> listenerRegistrations;
+
+    SharedVersionService() {
+        this.resolutions = new ConcurrentHashMap<>();
+        this.usedWatchers = Collections.newSetFromMap(new ConcurrentHashMap<VersionFileWatcher, Boolean>());
+        this.listenerRegistrations = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Returns service of the build
+     *
+     * @param gradle build instance
+     * @return shared version service
+     */
+    static SharedVersionService forBuild(Gradle gradle) {
+        assert null != gradle : "Build is undefined";
+        synchronized (SERVICES) {
+            SharedVersionService service = SERVICES.get(gradle);
+            if (null == service) {
+                service = new SharedVersionService();
+                SERVICES.put(gradle, service);
+                gradle.addBuildListener(new BuildFinishedListener(gradle, service));
+            }
+            return service;
+        }
+    }
+
+    SemanticVersion parse(final String specification) {
+        if (null == specification) {
+            throw new NullPointerException("Semantic version is not specified");
+        }
+        return resolve(new Key("specification", specification), new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return SemanticVersion.is(specification);
+            }
+        });
+    }
+
+    SemanticVersion fromFile(final Path versionHolder, final boolean watch) {
+        // Watched files are kept apart, so that a file resolved without watching is still watched when requested
+        return resolve(new Key(watch ? "watchedFile" : "file", canonicalPath(versionHolder)), new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return watch ? watch(versionHolder).getVersion() : SemanticVersion.from(versionHolder);
+            }
+        });
+    }
+
+    SemanticVersion fromUrl(final URL url, final VersionUrlLoader urlLoader) {
+        if (null == url) {
+            throw new NullPointerException("Version specification URL not specified");
+        }
+        return resolve(new Key("url", Arrays.asList(url.toExternalForm(), urlLoader.getSettings())), new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return urlLoader.load(url);
+            }
+        });
+    }
+
+    SemanticVersion fromSource(final String source, final VersionUrlLoader urlLoader) {
+        if (null == source) {
+            throw new NullPointerException("Version specification source not defined");
+        }
+        return resolve(new Key("source", Arrays.asList(source, urlLoader.getSettings())), new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return SemanticVersion.from(source, urlLoader);
+            }
+        });
+    }
+
+    SemanticVersion fromFirstOf(final Object[] sources, final VersionUrlLoader urlLoader, final long hedgeDelay) {
+        if (null == sources) {
+            throw new NullPointerException("Version sources are not specified");
+        }
+        final Object[] sourceKeys = new Object[sources.length];
+        for (int i = 0; i < sources.length; ++i) {
+            // URL.equals() may resolve host names
+            final Object source = sources[i];
+            sourceKeys[i] = (source instanceof URL) ? new Key("url", ((URL) source).toExternalForm()) : source;
+        }
+        return resolve(new Key("sources", Arrays.asList(Arrays.asList(sourceKeys), urlLoader.getSettings(), hedgeDelay)), new Callable<SemanticVersion>() {
+            @Override
+            public SemanticVersion call() {
+                return new VersionSourceResolver(urlLoader, hedgeDelay).resolve(sources);
+            }
+        });
+    }
+
+    /**
+     * Resolves version override; the result is shared by all projects that use the same list of sources
+     *
+     * @param sourceNames names of override sources, identifying the list
+     * @param resolution resolution of the override, it may return {@code null} when no override is active
+     * @return version override or {@code null}
+     */
+    SemanticVersion override(String[] sourceNames, Callable<SemanticVersion> resolution) {
+        return resolve(new Key("override", Arrays.asList(sourceNames)), resolution);
+    }
+
+    SemanticVersion resolve(Key key, Callable<SemanticVersion> resolution) {
+        FutureTask<SemanticVersion> task = resolutions.get(key);
+        boolean repeated = true;
+        if (null == task) {
+            final FutureTask<SemanticVersion> created = new FutureTask<>(resolution);
+            task = resolutions.putIfAbsent(key, created);
+            if (null == task) {
+                task = created;
+                repeated = false;
+                created.run();
+            }
+        }
+        final SemanticVersion result;
+        try {
+            result = task.get();
+        } catch (ExecutionException e) {
+            resolutions.remove(key, task);
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new GradleException("Cannot resolve version from " + key, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradleException("Version resolution from " + key + " was interrupted", e);
+        }
+        if (repeated) {
+            LOG.debug("Version from {} already resolved in this build, reusing {}", key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns shared watcher of the file and keeps it open after this build finishes
+     *
+     * @param versionHolder watched file
+     * @return watcher of the file
+     */
+    VersionFileWatcher watch(Path versionHolder) {
+        final VersionFileWatcher watcher = VersionFileWatcher.watch(versionHolder);
+        usedWatchers.add(watcher);
+        return watcher;
+    }
+
+    /**
+     * Adds listener to the watcher; the listener is removed when this build finishes
+     *
+     * @param watcher watcher of a version file
+     * @param listener listener to be notified
+     */
+    void addListener(VersionFileWatcher watcher, VersionFileWatcher.Listener listener) {
+        watcher.addListener(listener);
+        listenerRegistrations.add(new ListenerRegistration(watcher, listener));
+    }
+
+    void buildFinished() {
+        for (final ListenerRegistration registration : listenerRegistrations) {
+            registration.watcher.removeListener(registration.listener);
+        }
+        listenerRegistrations.clear();
+        VersionFileWatcher.closeUnused(usedWatchers);
+        usedWatchers.clear();
+    }
+
+    int size() {
+        return resolutions.size();
+    }
+
+    private static Path canonicalPath(Path path) {
+        if (null == path) {
+            throw new NullPointerException("Version holder file not specified");
+        }
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            // Let the resolution report the problem
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    private static final class ListenerRegistration {
+        final VersionFileWatcher watcher;
+        final VersionFileWatcher.Listener listener;
+
+        ListenerRegistration(VersionFileWatcher watcher, VersionFileWatcher.Listener listener) {
+            this.watcher = watcher;
+            this.listener = listener;
+        }
+    }
+
+    private static final class BuildFinishedListener extends BuildAdapter {
+        private final Gradle gradle;
+        private final SharedVersionService service;
+
+        BuildFinishedListener(Gradle gradle, SharedVersionService service) {
+            this.gradle = gradle;
+            this.service = service;
+        }
+
+        @Override
+        public void buildFinished(BuildResult result) {
+            synchronized (SERVICES) {
+                SERVICES.remove(gradle);
+            }
+            service.buildFinished();
+        }
+    }
+
+    static final class Key {
+        final String kind;
+        final Object value;
+
+        Key(String kind, Object value) {
+            assert null != kind;
+            this.kind = kind;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return kind.equals(other.kind) && ((null != value) ? value.equals(other.value) : (null == other.value));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + ((null != value) ? value.hashCode() : 0);
+        }
+
+        @Override
+        public String toString() {
+            return kind + ' ' + value;
+        }
+    }
+
+}
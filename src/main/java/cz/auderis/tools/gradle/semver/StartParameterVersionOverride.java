@@ -18,21 +18,35 @@ package cz.auderis.tools.gradle.semver;
 
 import org.gradle.StartParameter;
 
+import java.io.Serializable;
 import java.util.Map;
 
-class StartParameterVersionOverride implements VersionOverrideSource {
+/**
+ * Defines a source for version overrides based on project properties given on the command line.
+ * The properties are fixed for the whole build, so the value is captured when the source is created;
+ * the source does not keep a reference to the start parameter and can be serialized.
+ */
+class StartParameterVersionOverride implements VersionOverrideSource, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     public static final String DEFAULT_PARAMETER_NAME = "versionOverride";
 
-    final StartParameter startParameter;
     final String propertyName;
+    final boolean active;
+    final String versionSpecification;
 
     StartParameterVersionOverride(StartParameter startParameter, String propertyName) {
-        assert null != startParameter : "Start parameter reference is undefined";
+        this(startParameter.getProjectProperties(), propertyName);
+    }
+
+    StartParameterVersionOverride(Map<String, String> projectProperties, String propertyName) {
+        assert null != projectProperties : "Project properties are undefined";
         assert null != propertyName : "Property name is undefined";
         assert !propertyName.trim().isEmpty() : "Property name is blank";
-        this.startParameter = startParameter;
         this.propertyName = propertyName;
+        this.active = projectProperties.containsKey(propertyName);
+        this.versionSpecification = projectProperties.get(propertyName);
     }
 
     @Override
@@ -42,14 +56,12 @@ class StartParameterVersionOverride implements VersionOverrideSource {
 
     @Override
     public boolean isActive() {
-        final Map<String, String> properties = startParameter.getProjectProperties();
-        return properties.containsKey(propertyName);
+        return active;
     }
 
     @Override
     public String getVersionSpecification() {
-        final Map<String, String> properties = startParameter.getProjectProperties();
-        return properties.get(propertyName);
+        return versionSpecification;
     }
 
     @Override
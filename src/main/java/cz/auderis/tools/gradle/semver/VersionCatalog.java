@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Navigable collection of versions ordered by precedence. Besides navigation
+ * ({@link #floor(SemanticVersion)}, {@link #ceiling(SemanticVersion)} etc.), the catalog answers
+ * queries such as "latest stable version below 3.0" or "newest snapshot of 2.4.x":
+ * <pre>
+ *   catalog.latestStableIn(VersionRangeSet.of("&lt;3.0.0"))
+ *   catalog.minorBucket(2, 4).latestSnapshot()
+ * </pre>
+ * Stable and snapshot versions are kept in separate indices, so all queries and insertions
+ * take logarithmic time. Buckets returned by {@link #majorBucket(int)} and {@link #minorBucket(int, int)}
+ * are live views of the catalog.
+ * <p>
+ * Since build metadata do not take part in precedence, the catalog holds at most one version
+ * of the same precedence; the version inserted first is retained. The catalog is not thread-safe.
+ */
+public final class VersionCatalog implements Iterable<SemanticVersion> {
+
+    private final NavigableSet<SemanticVersion> versions;
+    private final NavigableSet<SemanticVersion> stableVersions;
+    private final NavigableSet<SemanticVersion> snapshotVersions;
+
+    public VersionCatalog() {
+        this(new TreeSet<SemanticVersion>(), new TreeSet<SemanticVersion>(), new TreeSet<SemanticVersion>());
+    }
+
+    public VersionCatalog(Iterable<SemanticVersion> versions) {
+        this();
+        addAll(versions);
+    }
+
+    private VersionCatalog(NavigableSet<SemanticVersion> versions, NavigableSet<SemanticVersion> stableVersions,
+                           NavigableSet<SemanticVersion> snapshotVersions) {
+        this.versions = versions;
+        this.stableVersions = stableVersions;
+        this.snapshotVersions = snapshotVersions;
+    }
+
+    /**
+     * Inserts the version into the catalog
+     *
+     * @param version version to insert
+     * @return {@code true} if the catalog did not contain a version of the same precedence
+     * @throws IllegalArgumentException when this catalog is a bucket and the version lies outside of it
+     */
+    public boolean add(SemanticVersion version) {
+        if (null == version) {
+            throw new NullPointerException("Version is not specified");
+        }
+        if (!versions.add(version)) {
+            return false;
+        }
+        if (version.isStable()) {
+            stableVersions.add(version);
+        } else if (version.isSnapshot()) {
+            snapshotVersions.add(version);
+        }
+        return true;
+    }
+
+    public boolean addAll(Iterable<SemanticVersion> versions) {
+        if (null == versions) {
+            throw new NullPointerException("Versions are not specified");
+        }
+        boolean changed = false;
+        for (final SemanticVersion version : versions) {
+            changed |= add(version);
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the version of the same precedence from the catalog
+     *
+     * @param version version to remove
+     * @return {@code true} if the version was present
+     */
+    public boolean remove(SemanticVersion version) {
+        if (null == version) {
+            throw new NullPointerException("Version is not specified");
+        }
+        if (!versions.remove(version)) {
+            return false;
+        }
+        stableVersions.remove(version);
+        snapshotVersions.remove(version);
+        return true;
+    }
+
+    public boolean contains(SemanticVersion version) {
+        return (null != version) && versions.contains(version);
+    }
+
+    public int size() {
+        return versions.size();
+    }
+
+    public boolean isEmpty() {
+        return versions.isEmpty();
+    }
+
+    /**
+     * Returns iterator over versions in ascending order of precedence; the iterator does not support removal
+     *
+     * @return iterator over versions
+     */
+    @Override
+    public Iterator<SemanticVersion> iterator() {
+        return Collections.unmodifiableSet(versions).iterator();
+    }
+
+    public SemanticVersion floor(SemanticVersion version) {
+        return versions.floor(checkVersion(version));
+    }
+
+    public SemanticVersion ceiling(SemanticVersion version) {
+        return versions.ceiling(checkVersion(version));
+    }
+
+    public SemanticVersion higher(SemanticVersion version) {
+        return versions.higher(checkVersion(version));
+    }
+
+    public SemanticVersion lower(SemanticVersion version) {
+        return versions.lower(checkVersion(version));
+    }
+
+    public SemanticVersion first() {
+        return versions.isEmpty() ? null : versions.first();
+    }
+
+    public SemanticVersion latest() {
+        return versions.isEmpty() ? null : versions.last();
+    }
+
+    /**
+     * Returns the latest version that is stable in the sense of {@link SemanticVersion#isStable()}
+     *
+     * @return latest stable version or {@code null} if there is none
+     */
+    public SemanticVersion latestStable() {
+        return stableVersions.isEmpty() ? null : stableVersions.last();
+    }
+
+    public SemanticVersion latestSnapshot() {
+        return snapshotVersions.isEmpty() ? null : snapshotVersions.last();
+    }
+
+    /**
+     * Returns the latest version within the range. Note that as with {@link VersionRangeSet#contains(SemanticVersion)},
+     * pre-release versions within the range are included.
+     *
+     * @param range set of version ranges
+     * @return latest version in the range or {@code null} if there is none
+     */
+    public SemanticVersion latestIn(VersionRangeSet range) {
+        return latestIn(versions, range);
+    }
+
+    public SemanticVersion latestStableIn(VersionRangeSet range) {
+        return latestIn(stableVersions, range);
+    }
+
+    public SemanticVersion latestSnapshotIn(VersionRangeSet range) {
+        return latestIn(snapshotVersions, range);
+    }
+
+    /**
+     * Returns a live view of versions with the given major version number. Versions inserted
+     * into the bucket must belong to it.
+     *
+     * @param major major version number
+     * @return catalog bucket
+     */
+    public VersionCatalog majorBucket(int major) {
+        if (major < 0) {
+            throw new IllegalArgumentException("Invalid major version number: " + major);
+        }
+        final SemanticVersion from = lowestVersion(major, 0);
+        final SemanticVersion to = (Integer.MAX_VALUE != major) ? lowestVersion(major + 1, 0) : null;
+        return subCatalog(from, to);
+    }
+
+    /**
+     * Returns a live view of versions with the given major and minor version numbers. Versions inserted
+     * into the bucket must belong to it.
+     *
+     * @param major major version number
+     * @param minor minor version number
+     * @return catalog bucket
+     */
+    public VersionCatalog minorBucket(int major, int minor) {
+        if (major < 0) {
+            throw new IllegalArgumentException("Invalid major version number: " + major);
+        } else if (minor < 0) {
+            throw new IllegalArgumentException("Invalid minor version number: " + minor);
+        }
+        final SemanticVersion from = lowestVersion(major, minor);
+        final SemanticVersion to;
+        if (Integer.MAX_VALUE != minor) {
+            to = lowestVersion(major, minor + 1);
+        } else if (Integer.MAX_VALUE != major) {
+            to = lowestVersion(major + 1, 0);
+        } else {
+            to = null;
+        }
+        return subCatalog(from, to);
+    }
+
+    @Override
+    public String toString() {
+        return versions.toString();
+    }
+
+    private VersionCatalog subCatalog(SemanticVersion from, SemanticVersion to) {
+        if (null == to) {
+            return new VersionCatalog(versions.tailSet(from, true),
+                    stableVersions.tailSet(from, true),
+                    snapshotVersions.tailSet(from, true));
+        }
+        return new VersionCatalog(versions.subSet(from, true, to, false),
+                stableVersions.subSet(from, true, to, false),
+                snapshotVersions.subSet(from, true, to, false));
+    }
+
+    private static SemanticVersion lowestVersion(int major, int minor) {
+        // Pre-release identifier "0" has the lowest possible precedence
+        return SemanticVersion.builder(major, minor, 0).withPreReleaseIdentifier("0").build();
+    }
+
+    private static SemanticVersion latestIn(NavigableSet<SemanticVersion> versions, VersionRangeSet range) {
+        if (null == range) {
+            throw new NullPointerException("Version range is not specified");
+        } else if (versions.isEmpty()) {
+            return null;
+        }
+        final SemanticVersion[] cutVersions = range.cutVersions;
+        final boolean[] cutAbove = range.cutAbove;
+        // Check intervals from the top; every interval costs a single lookup
+        for (int i = cutVersions.length - 2; i >= 0; i -= 2) {
+            final SemanticVersion upper = cutVersions[i + 1];
+            final SemanticVersion candidate;
+            if (null == upper) {
+                candidate = versions.last();
+            } else if (cutAbove[i + 1]) {
+                candidate = versions.floor(upper);
+            } else {
+                candidate = versions.lower(upper);
+            }
+            if (null == candidate) {
+                return null;
+            }
+            final SemanticVersion lower = cutVersions[i];
+            if (null == lower) {
+                return candidate;
+            }
+            final int cmp = SemanticVersion.comparePrecedence(candidate, lower);
+            if ((cmp > 0) || ((0 == cmp) && !cutAbove[i])) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static SemanticVersion checkVersion(SemanticVersion version) {
+        if (null == version) {
+            throw new NullPointerException("Version is not specified");
+        }
+        return version;
+    }
+
+}
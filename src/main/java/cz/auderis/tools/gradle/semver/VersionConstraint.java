@@ -0,0 +1,442 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.InvalidUserDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled constraint on semantic versions, using the range syntax known from npm:
+ * <ul>
+ * <li>primitive comparisons {@code <}, {@code <=}, {@code >}, {@code >=} and {@code =},
+ * e.g. {@code >=1.0.0 <2.0.0-0} (space-separated comparisons must all be satisfied)</li>
+ * <li>X-ranges {@code *}, {@code 1.x}, {@code 1.2.*} or partial versions {@code 1}, {@code 1.2}</li>
+ * <li>tilde ranges {@code ~1.2.3} (patch-level changes allowed)</li>
+ * <li>caret ranges {@code ^1.2.3} (changes not modifying the left-most non-zero number allowed)</li>
+ * <li>hyphen ranges {@code 1.2.3 - 2.3.4} (inclusive)</li>
+ * <li>alternatives separated by {@code ||}</li>
+ * </ul>
+ * A version with pre-release identifiers satisfies a range only if the range mentions
+ * a pre-release version with the same major, minor and patch numbers, e.g. {@code 1.2.3-beta.4}
+ * satisfies {@code >=1.2.3-alpha <2.0.0}, but {@code 1.4.0-beta} does not.
+ * <p>
+ * The specification is parsed once into intervals of version precedence; evaluation only
+ * compares precomputed keys and does not allocate.
+ * <pre>
+ *   def constraint = VersionConstraint.parse('^1.4 || ~2.3.1')
+ *   assert constraint.isSatisfiedBy(project.version)
+ * </pre>
+ */
+public final class VersionConstraint {
+
+    private static final Pattern ALTERNATIVE_SEPARATOR = Pattern.compile("\\s*\\|\\|\\s*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String specification;
+    // Range i is the interval between lowerBounds[i] and upperBounds[i], null bound means unbounded
+    final SemanticVersion[] lowerBounds;
+    final boolean[] lowerInclusive;
+    final SemanticVersion[] upperBounds;
+    final boolean[] upperInclusive;
+    // Pre-release versions mentioned by range i are at indices preReleaseStart[i] .. preReleaseStart[i + 1] - 1
+    private final int[] preReleaseStart;
+    private final SemanticVersion[] preReleaseVersions;
+
+    private VersionConstraint(String specification, List<Range> ranges) {
+        this.specification = specification;
+        final int count = ranges.size();
+        this.lowerBounds = new SemanticVersion[count];
+        this.lowerInclusive = new boolean[count];
+        this.upperBounds = new SemanticVersion[count];
+        this.upperInclusive = new boolean[count];
+        this.preReleaseStart = new int[count + 1];
+        final List<SemanticVersion> preReleases = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            final Range range = ranges.get(i);
+            lowerBounds[i] = range.lower;
+            lowerInclusive[i] = range.lowerInclusive;
+            upperBounds[i] = range.upper;
+            upperInclusive[i] = range.upperInclusive;
+            preReleaseStart[i] = preReleases.size();
+            preReleases.addAll(range.preReleases);
+        }
+        preReleaseStart[count] = preReleases.size();
+        this.preReleaseVersions = preReleases.toArray(new SemanticVersion[preReleases.size()]);
+    }
+
+    /**
+     * Parses version constraint specification
+     *
+     * @param specification text representation of the constraint
+     * @return compiled constraint
+     * @throws NullPointerException when {@code specification} is {@code null}
+     * @throws InvalidUserDataException when {@code specification} is not a valid constraint
+     */
+    public static VersionConstraint parse(String specification) {
+        if (null == specification) {
+            throw new NullPointerException("Version constraint is not specified");
+        }
+        final String[] alternatives = ALTERNATIVE_SEPARATOR.split(specification.trim(), -1);
+        final List<Range> ranges = new ArrayList<>(alternatives.length);
+        for (final String alternative : alternatives) {
+            final Range range = parseRange(alternative, specification);
+            if (!range.isEmpty()) {
+                ranges.add(range);
+            }
+        }
+        return new VersionConstraint(specification, ranges);
+    }
+
+    /**
+     * Checks whether the version satisfies this constraint
+     *
+     * @param version version to check
+     * @return {@code true} if the version satisfies at least one of the alternative ranges
+     * @throws NullPointerException when {@code version} is {@code null}
+     */
+    public boolean isSatisfiedBy(SemanticVersion version) {
+        if (null == version) {
+            throw new NullPointerException("Version is not specified");
+        }
+        final int rangeCount = lowerBounds.length;
+        for (int i = 0; i < rangeCount; ++i) {
+            if (rangeContains(i, version) && ((0L != (version.patchKey & 1L)) || rangeMentionsTriple(i, version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if no version can satisfy this constraint
+     *
+     * @return {@code true} for unsatisfiable constraint
+     */
+    public boolean isEmpty() {
+        return 0 == lowerBounds.length;
+    }
+
+    @Override
+    public String toString() {
+        return specification;
+    }
+
+    private boolean rangeContains(int range, SemanticVersion version) {
+        final SemanticVersion lower = lowerBounds[range];
+        if (null != lower) {
+            final int cmp = SemanticVersion.comparePrecedence(version, lower);
+            if ((cmp < 0) || ((0 == cmp) && !lowerInclusive[range])) {
+                return false;
+            }
+        }
+        final SemanticVersion upper = upperBounds[range];
+        if (null != upper) {
+            final int cmp = SemanticVersion.comparePrecedence(version, upper);
+            if ((cmp > 0) || ((0 == cmp) && !upperInclusive[range])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean rangeMentionsTriple(int range, SemanticVersion version) {
+        final long patch = version.patchKey >>> 1;
+        for (int i = preReleaseStart[range]; i < preReleaseStart[range + 1]; ++i) {
+            final SemanticVersion mentioned = preReleaseVersions[i];
+            if ((mentioned.majorMinorKey == version.majorMinorKey) && ((mentioned.patchKey >>> 1) == patch)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Range parseRange(String text, String specification) {
+        final Range range = new Range();
+        if (text.isEmpty()) {
+            return range;
+        }
+        final String[] words = WHITESPACE.split(text);
+        // Operators may be separated from their versions by whitespace
+        final List<String> tokens = new ArrayList<>(words.length);
+        for (int i = 0; i < words.length; ++i) {
+            final String word = words[i];
+            if (isOperator(word) && (i + 1 < words.length)) {
+                tokens.add(word + words[++i]);
+            } else {
+                tokens.add(word);
+            }
+        }
+        if ((3 == tokens.size()) && "-".equals(tokens.get(1))) {
+            applyComparison(range, ">=", parsePartial(tokens.get(0), specification));
+            applyComparison(range, "<=", parsePartial(tokens.get(2), specification));
+            return range;
+        }
+        for (final String token : tokens) {
+            final int operatorLength = operatorLength(token);
+            final String operator = token.substring(0, operatorLength);
+            final Partial partial = parsePartial(token.substring(operatorLength), specification);
+            switch (operator) {
+                case "~":
+                    applyTilde(range, partial);
+                    break;
+                case "^":
+                    applyCaret(range, partial);
+                    break;
+                default:
+                    applyComparison(range, operator, partial);
+                    break;
+            }
+        }
+        return range;
+    }
+
+    private static boolean isOperator(String word) {
+        return (0 != word.length()) && (operatorLength(word) == word.length());
+    }
+
+    private static int operatorLength(String token) {
+        if (token.startsWith("<=") || token.startsWith(">=")) {
+            return 2;
+        } else if (token.startsWith("<") || token.startsWith(">") || token.startsWith("=")
+                || token.startsWith("~") || token.startsWith("^")) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private static void applyComparison(Range range, String operator, Partial p) {
+        switch (operator) {
+            case ">":
+                if (p.isAny()) {
+                    range.markEmpty();
+                } else if (null != p.exact) {
+                    range.atLeast(p.exact, false);
+                } else {
+                    range.atLeast(p.isMajorOnly() ? version(p.major + 1L, 0, 0) : version(p.major, p.minor + 1L, 0), true);
+                }
+                break;
+            case ">=":
+                if (null != p.exact) {
+                    range.atLeast(p.exact, true);
+                } else if (!p.isAny()) {
+                    range.atLeast(p.lowest(), true);
+                }
+                break;
+            case "<":
+                if (p.isAny()) {
+                    range.markEmpty();
+                } else if (null != p.exact) {
+                    range.below(p.exact, false);
+                } else {
+                    range.below(lowestPreRelease(p.major, Math.max(p.minor, 0), 0), false);
+                }
+                break;
+            case "<=":
+                if (null != p.exact) {
+                    range.below(p.exact, true);
+                } else if (!p.isAny()) {
+                    range.below(p.upperExclusive(), false);
+                }
+                break;
+            default:
+                // X-range or equality
+                if (null != p.exact) {
+                    range.atLeast(p.exact, true);
+                    range.below(p.exact, true);
+                } else if (!p.isAny()) {
+                    range.atLeast(p.lowest(), true);
+                    range.below(p.upperExclusive(), false);
+                }
+                break;
+        }
+    }
+
+    private static void applyTilde(Range range, Partial p) {
+        if (p.isAny()) {
+            return;
+        }
+        range.atLeast((null != p.exact) ? p.exact : p.lowest(), true);
+        if (p.isMajorOnly()) {
+            range.below(lowestPreRelease(p.major + 1L, 0, 0), false);
+        } else {
+            range.below(lowestPreRelease(p.major, p.minor + 1L, 0), false);
+        }
+    }
+
+    private static void applyCaret(Range range, Partial p) {
+        if (p.isAny()) {
+            return;
+        }
+        range.atLeast((null != p.exact) ? p.exact : p.lowest(), true);
+        if ((p.major > 0) || p.isMajorOnly()) {
+            range.below(lowestPreRelease(p.major + 1L, 0, 0), false);
+        } else if ((p.minor > 0) || (p.patch < 0)) {
+            range.below(lowestPreRelease(0, p.minor + 1L, 0), false);
+        } else {
+            range.below(lowestPreRelease(0, 0, p.patch + 1L), false);
+        }
+    }
+
+    private static Partial parsePartial(String text, String specification) {
+        final SemanticVersion exact = SemanticVersionParser.parse(text, 0, text.length());
+        if (null != exact) {
+            return new Partial(exact.major, exact.minor, exact.patch, exact);
+        }
+        final String[] parts = text.split("\\.", -1);
+        if ((parts.length > 3) || text.isEmpty()) {
+            throw invalid(specification);
+        }
+        final int[] numbers = { -1, -1, -1 };
+        for (int i = 0; i < parts.length; ++i) {
+            final String part = parts[i];
+            if ("x".equals(part) || "X".equals(part) || "*".equals(part)) {
+                // Any further components are ignored
+                break;
+            }
+            final long value = (0 == part.length()) ? -1L : SemanticVersionParser.parseNumber(part);
+            if (value < 0L) {
+                throw invalid(specification);
+            }
+            numbers[i] = (int) value;
+        }
+        return new Partial(numbers[0], numbers[1], numbers[2], null);
+    }
+
+    private static InvalidUserDataException invalid(String specification) {
+        return new InvalidUserDataException("Invalid version constraint: " + specification);
+    }
+
+    /**
+     * Creates version from numbers that may exceed {@code int} range after incrementing;
+     * such version is represented by {@code null}
+     */
+    private static SemanticVersion version(long major, long minor, long patch) {
+        if ((major > Integer.MAX_VALUE) || (minor > Integer.MAX_VALUE) || (patch > Integer.MAX_VALUE)) {
+            return null;
+        }
+        return new SemanticVersion((int) major, (int) minor, (int) patch);
+    }
+
+    /**
+     * Creates the lowest version with the given numbers, i.e. {@code X.Y.Z-0}
+     */
+    private static SemanticVersion lowestPreRelease(long major, long minor, long patch) {
+        final SemanticVersion version = version(major, minor, patch);
+        return (null != version) ? version.withPreReleaseIdentifier("0") : null;
+    }
+
+    /**
+     * Partially specified version; unspecified numbers are negative
+     */
+    private static final class Partial {
+        final int major;
+        final int minor;
+        final int patch;
+        final SemanticVersion exact;
+
+        Partial(int major, int minor, int patch, SemanticVersion exact) {
+            this.major = major;
+            this.minor = minor;
+            this.patch = patch;
+            this.exact = exact;
+        }
+
+        boolean isAny() {
+            return major < 0;
+        }
+
+        boolean isMajorOnly() {
+            return minor < 0;
+        }
+
+        SemanticVersion lowest() {
+            return new SemanticVersion(major, Math.max(minor, 0), Math.max(patch, 0));
+        }
+
+        SemanticVersion upperExclusive() {
+            if (isMajorOnly()) {
+                return lowestPreRelease(major + 1L, 0, 0);
+            } else if (patch < 0) {
+                return lowestPreRelease(major, minor + 1L, 0);
+            }
+            return lowestPreRelease(major, minor, patch + 1L);
+        }
+    }
+
+    /**
+     * Intersection of comparisons being compiled
+     */
+    private static final class Range {
+        SemanticVersion lower;
+        boolean lowerInclusive;
+        SemanticVersion upper;
+        boolean upperInclusive;
+        boolean empty;
+        final List<SemanticVersion> preReleases = new ArrayList<>(2);
+
+        void atLeast(SemanticVersion bound, boolean inclusive) {
+            if (null == bound) {
+                // Bound exceeds the highest representable version
+                markEmpty();
+                return;
+            }
+            mention(bound);
+            final int cmp = (null != lower) ? SemanticVersion.comparePrecedence(bound, lower) : 1;
+            if ((cmp > 0) || ((0 == cmp) && !inclusive)) {
+                lower = bound;
+                lowerInclusive = inclusive;
+            }
+        }
+
+        void below(SemanticVersion bound, boolean inclusive) {
+            if (null == bound) {
+                // Bound exceeds the highest representable version, so there is no limit
+                return;
+            }
+            mention(bound);
+            final int cmp = (null != upper) ? SemanticVersion.comparePrecedence(bound, upper) : -1;
+            if ((cmp < 0) || ((0 == cmp) && !inclusive)) {
+                upper = bound;
+                upperInclusive = inclusive;
+            }
+        }
+
+        void markEmpty() {
+            empty = true;
+        }
+
+        boolean isEmpty() {
+            if (empty) {
+                return true;
+            } else if ((null == lower) || (null == upper)) {
+                return false;
+            }
+            final int cmp = SemanticVersion.comparePrecedence(lower, upper);
+            return (cmp > 0) || ((0 == cmp) && !(lowerInclusive && upperInclusive));
+        }
+
+        private void mention(SemanticVersion bound) {
+            if (0L == (bound.patchKey & 1L)) {
+                preReleases.add(bound);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of versions loaded from files by {@link SemanticVersion#from(java.nio.file.Path)}. Entries are
+ * keyed by canonical path and remain valid while the file size and last modification time stay the same,
+ * so a version file shared by many projects is parsed only once per build (or once per daemon when
+ * the file does not change).
+ * <p>
+ * Files modified less than {@value #RACY_INTERVAL_MILLIS} ms ago are not cached, since a further change
+ * within the resolution of file timestamps would go unnoticed.
+ */
+final class VersionFileCache {
+
+    static final int MAX_ENTRIES = 256;
+    static final long RACY_INTERVAL_MILLIS = 2000L;
+
+    static final VersionFileCache SHARED = new VersionFileCache(MAX_ENTRIES);
+
+    private final ConcurrentMap<Path, Entry> entries;
+    private final int maxEntries;
+
+    VersionFileCache(int maxEntries) {
+        this.entries = new ConcurrentHashMap<>();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns version loaded from the file, reading the file only when it was changed since the last load
+     *
+     * @param versionHolder file with version specification
+     * @return loaded version
+     * @throws InvalidUserDataException when the file cannot be read or its contents is not valid
+     */
+    SemanticVersion load(Path versionHolder) {
+        final Path canonicalPath;
+        final BasicFileAttributes attributes;
+        try {
+            canonicalPath = versionHolder.toRealPath();
+            attributes = Files.readAttributes(canonicalPath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new InvalidUserDataException("Unable to read version holder file " + versionHolder, e);
+        }
+        if (!attributes.isRegularFile()) {
+            throw new InvalidUserDataException("Unable to read version holder file " + versionHolder);
+        }
+        final long size = attributes.size();
+        final long lastModified = attributes.lastModifiedTime().toMillis();
+        final Entry entry = entries.get(canonicalPath);
+        if ((null != entry) && (entry.size == size) && (entry.lastModified == lastModified)) {
+            return entry.version;
+        }
+        final SemanticVersion version = read(canonicalPath, versionHolder);
+        if (System.currentTimeMillis() - lastModified >= RACY_INTERVAL_MILLIS) {
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+            entries.put(canonicalPath, new Entry(size, lastModified, version));
+        }
+        return version;
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static SemanticVersion read(Path path, Path versionHolder) {
+        try (final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return SemanticVersion.readVersion(reader);
+        } catch (GradleException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvalidUserDataException("Cannot parse version holder file " + versionHolder, e);
+        }
+    }
+
+    private static final class Entry {
+        final long size;
+        final long lastModified;
+        final SemanticVersion version;
+
+        Entry(long size, long lastModified, SemanticVersion version) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.version = version;
+        }
+    }
+
+}
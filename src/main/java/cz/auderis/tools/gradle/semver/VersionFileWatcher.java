@@ -0,0 +1,313 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Version source backed by a file that is watched for changes. The parsed version is kept in memory
+ * and the file is read again only after the file system reports a change of it, so continuous builds
+ * ({@code gradle -t}) do not repeat I/O and parsing in every cycle. Changes are debounced: the file is
+ * reloaded after no further change was reported for {@value #DEFAULT_DEBOUNCE_MILLIS} ms, so a burst
+ * of writes by an editor results in a single reload and a single notification of listeners.
+ * <p>
+ * Watchers obtained by {@link #watch(java.nio.file.Path)} are shared by canonical path and live until
+ * closed; the watching thread is a daemon thread. When a build finishes, the watchers that it has not
+ * used are closed, so watchers of files from earlier builds do not pile up in the Gradle daemon.
+ * Listeners added directly by {@link #addListener(Listener)} stay registered until removed; build scripts
+ * should use {@link SemanticVersionExtension#onVersionFileChange(Object, Listener)}, which removes
+ * the listener when the build finishes.
+ */
+public final class VersionFileWatcher implements Closeable {
+
+    static final long DEFAULT_DEBOUNCE_MILLIS = 200L;
+
+    private static final Logger LOG = Logging.getLogger(VersionFileWatcher.class);
+    private static final ConcurrentMap<Path, VersionFileWatcher> SHARED = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final List<Listener> listeners;
+    private final Object lock;
+    private SemanticVersion version;
+    private int loadCount;
+    private volatile boolean closed;
+
+    VersionFileWatcher(Path file, long debounceMillis) {
+        if (null == file) {
+            throw new NullPointerException("Version holder file is not specified");
+        } else if (debounceMillis < 0L) {
+            throw new IllegalArgumentException("Invalid debounce delay: " + debounceMillis);
+        }
+        this.file = file.toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.lock = new Object();
+        final Path directory = this.file.getParent();
+        try {
+            this.watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new InvalidUserDataException("Unable to watch version holder file " + file, e);
+        }
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watchLoop();
+            }
+        }, "semantic-version-watch-" + this.file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns shared watcher of the given file, creating it when necessary
+     *
+     * @param versionHolder file with version specification
+     * @return watcher of the file
+     * @throws InvalidUserDataException when the file does not exist or cannot be watched
+     */
+    public static VersionFileWatcher watch(Path versionHolder) {
+        if (null == versionHolder) {
+            throw new NullPointerException("Version holder file is not specified");
+        }
+        final Path canonicalPath;
+        try {
+            canonicalPath = versionHolder.toRealPath();
+        } catch (IOException e) {
+            throw new InvalidUserDataException("Unable to read version holder file " + versionHolder, e);
+        }
+        while (true) {
+            final VersionFileWatcher existing = SHARED.get(canonicalPath);
+            if ((null != existing) && !existing.closed) {
+                return existing;
+            }
+            final VersionFileWatcher created = new VersionFileWatcher(canonicalPath, DEFAULT_DEBOUNCE_MILLIS);
+            final boolean registered = (null == existing)
+                    ? (null == SHARED.putIfAbsent(canonicalPath, created))
+                    : SHARED.replace(canonicalPath, existing, created);
+            if (registered) {
+                return created;
+            }
+            created.close();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns version specified in the watched file; the file is read only for the first time
+     * and after it was changed
+     *
+     * @return current version
+     * @throws InvalidUserDataException when the file cannot be read or its contents is not valid
+     */
+    public SemanticVersion getVersion() {
+        synchronized (lock) {
+            if (null == version) {
+                version = read();
+                ++loadCount;
+            }
+            return version;
+        }
+    }
+
+    /**
+     * Registers listener that is notified from the watching thread when the version in the file changes
+     *
+     * @param listener listener to be notified
+     */
+    public void addListener(Listener listener) {
+        if (null == listener) {
+            throw new NullPointerException("Listener is not specified");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops watching the file; the watcher is not used by {@link #watch(Path)} afterwards
+     */
+    @Override
+    public void close() {
+        closed = true;
+        SHARED.remove(file, this);
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOG.debug("Cannot close watch service of {}", file, e);
+        }
+    }
+
+    /**
+     * Closes shared watchers other than the given ones
+     *
+     * @param used watchers that should stay open
+     */
+    static void closeUnused(Collection<VersionFileWatcher> used) {
+        for (final VersionFileWatcher watcher : SHARED.values()) {
+            if (!used.contains(watcher)) {
+                LOG.debug("Closing unused {}", watcher);
+                watcher.close();
+            }
+        }
+    }
+
+    int getListenerCount() {
+        return listeners.size();
+    }
+
+    int getLoadCount() {
+        synchronized (lock) {
+            return loadCount;
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (!closed) {
+                if (!processEvents(watchService.take())) {
+                    continue;
+                }
+                // Wait until the changes settle down
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                while (true) {
+                    final long remaining = deadline - System.nanoTime();
+                    final WatchKey key = (remaining > 0L) ? watchService.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (null == key) {
+                        break;
+                    } else if (processEvents(key)) {
+                        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                    }
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher was closed
+        }
+    }
+
+    /**
+     * Drains events of the key and resets it
+     *
+     * @return {@code true} if any event may concern the watched file
+     */
+    private boolean processEvents(WatchKey key) {
+        boolean relevant = false;
+        final Path fileName = file.getFileName();
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if ((StandardWatchEventKinds.OVERFLOW == event.kind()) || fileName.equals(event.context())) {
+                relevant = true;
+            }
+        }
+        if (!key.reset()) {
+            LOG.warn("Directory of version holder file {} is no longer accessible, watching stopped", file);
+            close();
+        }
+        return relevant;
+    }
+
+    private void reload() {
+        // The last good version is kept until the file is read successfully
+        final SemanticVersion current;
+        try {
+            current = read();
+        } catch (GradleException e) {
+            LOG.warn("Version holder file {} changed, but its version cannot be read: {}", file, e.getMessage());
+            return;
+        }
+        final SemanticVersion previous;
+        synchronized (lock) {
+            previous = version;
+            version = current;
+            ++loadCount;
+        }
+        if (current.equals(previous)) {
+            return;
+        }
+        for (final Listener listener : listeners) {
+            try {
+                listener.versionChanged(previous, current);
+            } catch (RuntimeException e) {
+                LOG.warn("Listener of version holder file {} failed", file, e);
+            }
+        }
+    }
+
+    private SemanticVersion read() {
+        try (final BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return SemanticVersion.readVersion(reader);
+        } catch (GradleException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new InvalidUserDataException("Cannot parse version holder file " + file, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VersionFileWatcher[" + file + "]";
+    }
+
+    /**
+     * Listener of version changes in a watched file
+     */
+    public interface Listener {
+
+        /**
+         * Called when the watched file was changed and contains a different version
+         *
+         * @param previous version loaded before the change or {@code null} if it was not loaded
+         * @param current version loaded after the change
+         */
+        void versionChanged(SemanticVersion previous, SemanticVersion current);
+
+    }
+
+}
@@ -17,24 +17,31 @@
 package cz.auderis.tools.gradle.semver;
 
 import java.util.AbstractList;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
-class VersionOverrideSourceList extends AbstractList<VersionOverrideSource> {
+class VersionOverrideSourceList extends AbstractList<VersionOverrideSource> implements RandomAccess {
 
-    private final List<VersionOverrideSource> sources;
+    private static final VersionOverrideSource[] NO_SOURCES = new VersionOverrideSource[0];
+
+    private VersionOverrideSource[] sources;
+    private int sourceCount;
     private VersionOverrideSource defaultSource;
+    private volatile boolean frozen;
 
     VersionOverrideSourceList(VersionOverrideSource defaultSource) {
         this.defaultSource = defaultSource;
-        this.sources = new LinkedList<>();
+        this.sources = NO_SOURCES;
     }
 
     @Override
     public VersionOverrideSource get(int index) {
-        if (!sources.isEmpty()) {
-            return sources.get(index);
+        if (0 != sourceCount) {
+            if ((index < 0) || (index >= sourceCount)) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + sourceCount);
+            }
+            return sources[index];
         } else if ((null != defaultSource) && (0 == index)) {
             return defaultSource;
         }
@@ -43,7 +50,7 @@ class VersionOverrideSourceList extends AbstractList<VersionOverrideSource> {
 
     @Override
     public int size() {
-        int size = sources.size();
+        int size = sourceCount;
         if ((0 == size) && (null != defaultSource)) {
             size = 1;
         }
@@ -55,13 +62,22 @@ class VersionOverrideSourceList extends AbstractList<VersionOverrideSource> {
         if (null == src) {
             return false;
         }
-        return sources.add(src);
+        checkNotFrozen();
+        if (sourceCount == sources.length) {
+            sources = Arrays.copyOf(sources, Math.max(4, 2 * sourceCount));
+        }
+        sources[sourceCount++] = src;
+        ++modCount;
+        return true;
     }
 
     @Override
     public void clear() {
-        sources.clear();
+        checkNotFrozen();
+        Arrays.fill(sources, 0, sourceCount, null);
+        sourceCount = 0;
         defaultSource = null;
+        ++modCount;
     }
 
     VersionOverrideSource getDefaultSource() {
@@ -69,7 +85,26 @@ class VersionOverrideSourceList extends AbstractList<VersionOverrideSource> {
     }
 
     void setDefaultSource(VersionOverrideSource defaultSource) {
+        checkNotFrozen();
         this.defaultSource = defaultSource;
     }
 
+    /**
+     * Prevents further modifications; the list is frozen after the project was evaluated, since later
+     * changes would not have any effect
+     */
+    void freeze() {
+        frozen = true;
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Version override sources cannot be changed after the project was evaluated");
+        }
+    }
+
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Result of batch parsing by {@link SemanticVersion#parseAll(Collection)} or
+ * {@link SemanticVersion#parallelParseAll(Collection)}. Invalid inputs do not interrupt parsing;
+ * they are reported by their positions in the input collection (in its iteration order).
+ */
+public final class VersionParseResult {
+
+    static final int PARALLEL_PARSE_THRESHOLD = 1 << 12;
+    private static final int[] NO_POSITIONS = new int[0];
+
+    private final CharSequence[] inputs;
+    private final SemanticVersion[] versions;
+    private final int[] invalidPositions;
+
+    private VersionParseResult(CharSequence[] inputs, SemanticVersion[] versions) {
+        this.inputs = inputs;
+        this.versions = versions;
+        int invalidCount = 0;
+        for (final SemanticVersion version : versions) {
+            if (null == version) {
+                ++invalidCount;
+            }
+        }
+        if (0 == invalidCount) {
+            this.invalidPositions = NO_POSITIONS;
+        } else {
+            this.invalidPositions = new int[invalidCount];
+            int n = 0;
+            for (int i = 0; i < versions.length; ++i) {
+                if (null == versions[i]) {
+                    invalidPositions[n++] = i;
+                }
+            }
+        }
+    }
+
+    static VersionParseResult parse(Collection<? extends CharSequence> specifications, boolean parallel) {
+        if (null == specifications) {
+            throw new NullPointerException("Version specifications are not specified");
+        }
+        final CharSequence[] inputs = specifications.toArray(new CharSequence[specifications.size()]);
+        final SemanticVersion[] versions = new SemanticVersion[inputs.length];
+        if (parallel && (inputs.length > PARALLEL_PARSE_THRESHOLD)) {
+            SharedPool.get().invoke(new ParseTask(inputs, versions, 0, inputs.length));
+        } else {
+            parseRange(inputs, versions, 0, inputs.length);
+        }
+        return new VersionParseResult(inputs, versions);
+    }
+
+    /**
+     * Returns the number of parsed inputs, both valid and invalid
+     *
+     * @return number of inputs
+     */
+    public int getInputCount() {
+        return inputs.length;
+    }
+
+    public boolean hasErrors() {
+        return 0 != invalidPositions.length;
+    }
+
+    /**
+     * Returns versions parsed from valid inputs, in the order of inputs. The returned list is read-only.
+     *
+     * @return parsed versions
+     */
+    public List<SemanticVersion> getVersions() {
+        if (0 == invalidPositions.length) {
+            return new ReadOnlyList<>(versions);
+        }
+        final SemanticVersion[] valid = new SemanticVersion[versions.length - invalidPositions.length];
+        int n = 0;
+        for (final SemanticVersion version : versions) {
+            if (null != version) {
+                valid[n++] = version;
+            }
+        }
+        return new ReadOnlyList<>(valid);
+    }
+
+    /**
+     * Returns version parsed from the input at the given position
+     *
+     * @param position position of the input
+     * @return parsed version or {@code null} if the input is invalid
+     */
+    public SemanticVersion getVersion(int position) {
+        return versions[position];
+    }
+
+    /**
+     * Returns positions of invalid inputs in ascending order
+     *
+     * @return array of positions; modifications do not affect this object
+     */
+    public int[] getInvalidPositions() {
+        return invalidPositions.clone();
+    }
+
+    /**
+     * Returns invalid inputs, in the same order as {@link #getInvalidPositions()}.
+     * The returned list is read-only.
+     *
+     * @return invalid inputs
+     */
+    public List<CharSequence> getInvalidInputs() {
+        final CharSequence[] invalid = new CharSequence[invalidPositions.length];
+        for (int i = 0; i < invalid.length; ++i) {
+            invalid[i] = inputs[invalidPositions[i]];
+        }
+        return new ReadOnlyList<>(invalid);
+    }
+
+    @Override
+    public String toString() {
+        return "VersionParseResult[inputs=" + inputs.length + ", invalid=" + invalidPositions.length + "]";
+    }
+
+    private static void parseRange(CharSequence[] inputs, SemanticVersion[] versions, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            final CharSequence input = inputs[i];
+            if (null != input) {
+                versions[i] = SemanticVersionParser.parse(input, 0, input.length());
+            }
+        }
+    }
+
+    private static final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CharSequence[] inputs;
+        private final SemanticVersion[] versions;
+        private final int from;
+        private final int to;
+
+        ParseTask(CharSequence[] inputs, SemanticVersion[] versions, int from, int to) {
+            this.inputs = inputs;
+            this.versions = versions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_PARSE_THRESHOLD) {
+                parseRange(inputs, versions, from, to);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(inputs, versions, from, middle), new ParseTask(inputs, versions, middle, to));
+        }
+    }
+
+    private static final class ReadOnlyList<E> extends AbstractList<E> implements RandomAccess {
+        private final E[] elements;
+
+        ReadOnlyList(E[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public E get(int index) {
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.Transformer;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+
+/**
+ * Lazily resolved value related to a project version. The value is resolved when it is requested
+ * for the first time, by {@link #get()}, {@link #call()} or {@link #toString()}, and it is memoized
+ * afterwards; failed resolutions are not memoized. Serialization resolves the value and stores only
+ * the value itself.
+ * <p>
+ * Since Gradle unpacks {@link Callable} values of task input properties when the task is executed,
+ * providers can be used as task inputs without resolving the version during configuration:
+ * <pre>
+ *   processResources.inputs.property('snapshot', project.version.snapshotProvider)
+ * </pre>
+ *
+ * @param <T> type of provided value
+ */
+public class VersionProvider<T> implements Callable<T>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Callable<? extends T> resolution;
+    private T value;
+    private volatile boolean resolved;
+
+    VersionProvider(Callable<? extends T> resolution) {
+        if (null == resolution) {
+            throw new NullPointerException("Resolution is not specified");
+        }
+        this.resolution = resolution;
+    }
+
+    /**
+     * Returns the value, resolving it when necessary
+     *
+     * @return provided value
+     */
+    public T get() {
+        if (!resolved) {
+            synchronized (this) {
+                if (!resolved) {
+                    value = invoke(resolution);
+                    resolution = null;
+                    resolved = true;
+                }
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public T call() {
+        return get();
+    }
+
+    /**
+     * Indicates whether the value was already resolved
+     *
+     * @return {@code true} if the value is resolved
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    /**
+     * Creates provider of a value derived from the value of this provider; neither value is resolved
+     * until the derived value is requested
+     *
+     * @param transformer derivation of the value
+     * @param <R> type of derived value
+     * @return provider of the derived value
+     */
+    public <R> VersionProvider<R> map(final Transformer<? extends R, ? super T> transformer) {
+        if (null == transformer) {
+            throw new NullPointerException("Transformer is not specified");
+        }
+        return new VersionProvider<>(new Callable<R>() {
+            @Override
+            public R call() {
+                return transformer.transform(get());
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+
+    /**
+     * Provider is serialized with its resolved value, the resolution (which may refer to the project
+     * model) is never serialized
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        get();
+        out.defaultWriteObject();
+    }
+
+    static <T> T invoke(Callable<? extends T> resolution) {
+        try {
+            return resolution.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new GradleException("Cannot resolve project version", e);
+        }
+    }
+
+}
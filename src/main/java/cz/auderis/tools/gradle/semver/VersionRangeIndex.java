@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of many keyed version constraints (e.g. constraints declared by subprojects) over
+ * the axis of version precedence. All interval boundaries of all constraints split the axis
+ * into elementary segments; for every segment the index keeps the set of constraints covering it.
+ * <p>
+ * Finding the constraints satisfied by a version is a binary search for its segment, and
+ * conflicts among all constraints are found in a single pass over segments instead of
+ * checking every pair of constraints.
+ *
+ * @param <K> type of constraint keys
+ */
+public final class VersionRangeIndex<K> {
+
+    private final List<K> keys;
+    private final VersionConstraint[] constraints;
+    private final VersionRangeSet[] rangeSets;
+    // Sorted distinct cuts; segment i lies between cut i-1 and cut i
+    private final SemanticVersion[] cutVersions;
+    private final boolean[] cutAbove;
+    private final BitSet[] segmentKeys;
+
+    private VersionRangeIndex(List<K> keys, VersionConstraint[] constraints, VersionRangeSet[] rangeSets) {
+        this.keys = keys;
+        this.constraints = constraints;
+        this.rangeSets = rangeSets;
+        // Collect and sort all cuts
+        final List<Cut> cuts = new ArrayList<>();
+        for (final VersionRangeSet rangeSet : rangeSets) {
+            for (int i = 0; i < rangeSet.cutVersions.length; ++i) {
+                cuts.add(new Cut(rangeSet.cutVersions[i], rangeSet.cutAbove[i]));
+            }
+        }
+        Collections.sort(cuts, Cut.ORDER);
+        int distinct = 0;
+        for (int i = 0; i < cuts.size(); ++i) {
+            if ((0 == distinct) || (0 != Cut.ORDER.compare(cuts.get(distinct - 1), cuts.get(i)))) {
+                cuts.set(distinct++, cuts.get(i));
+            }
+        }
+        this.cutVersions = new SemanticVersion[distinct];
+        this.cutAbove = new boolean[distinct];
+        for (int i = 0; i < distinct; ++i) {
+            cutVersions[i] = cuts.get(i).version;
+            cutAbove[i] = cuts.get(i).above;
+        }
+        // Mark segments covered by intervals of every constraint
+        this.segmentKeys = new BitSet[distinct + 1];
+        for (int i = 0; i <= distinct; ++i) {
+            segmentKeys[i] = new BitSet(keys.size());
+        }
+        for (int k = 0; k < rangeSets.length; ++k) {
+            final VersionRangeSet rangeSet = rangeSets[k];
+            for (int i = 0; i < rangeSet.cutVersions.length; i += 2) {
+                final int first = cutIndex(rangeSet.cutVersions[i], rangeSet.cutAbove[i]) + 1;
+                final int last = cutIndex(rangeSet.cutVersions[i + 1], rangeSet.cutAbove[i + 1]);
+                for (int segment = first; segment <= last; ++segment) {
+                    segmentKeys[segment].set(k);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates index of the provided constraints
+     *
+     * @param constraints constraints identified by keys
+     * @param <K> type of keys
+     * @return index of constraints
+     */
+    public static <K> VersionRangeIndex<K> of(Map<K, VersionConstraint> constraints) {
+        if (null == constraints) {
+            throw new NullPointerException("Constraints are not specified");
+        }
+        final int size = constraints.size();
+        final List<K> keys = new ArrayList<>(size);
+        final VersionConstraint[] constraintArray = new VersionConstraint[size];
+        final VersionRangeSet[] rangeSets = new VersionRangeSet[size];
+        int i = 0;
+        for (final Map.Entry<K, VersionConstraint> entry : constraints.entrySet()) {
+            keys.add(entry.getKey());
+            constraintArray[i] = entry.getValue();
+            rangeSets[i] = VersionRangeSet.of(entry.getValue());
+            ++i;
+        }
+        return new VersionRangeIndex<>(Collections.unmodifiableList(keys), constraintArray, rangeSets);
+    }
+
+    public List<K> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Finds constraints satisfied by the version; pre-release versions are checked according
+     * to the rules of {@link VersionConstraint#isSatisfiedBy(SemanticVersion)}
+     *
+     * @param version version to check
+     * @return keys of satisfied constraints, in the order of index creation
+     */
+    public List<K> satisfiedBy(SemanticVersion version) {
+        if (null == version) {
+            throw new NullPointerException("Version is not specified");
+        }
+        final int segment = VersionRangeSet.countCutsBelow(cutVersions, cutAbove, cutVersions.length, version);
+        final BitSet covering = segmentKeys[segment];
+        final List<K> result = new ArrayList<>(covering.cardinality());
+        final boolean preRelease = 0L == (version.patchKey & 1L);
+        for (int k = covering.nextSetBit(0); k >= 0; k = covering.nextSetBit(k + 1)) {
+            if (!preRelease || constraints[k].isSatisfiedBy(version)) {
+                result.add(keys.get(k));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns versions that satisfy all constraints, as a union of precedence intervals
+     *
+     * @return common range of all constraints
+     */
+    public VersionRangeSet getCommonRange() {
+        VersionRangeSet result = VersionRangeSet.all();
+        for (final VersionRangeSet rangeSet : rangeSets) {
+            result = result.intersect(rangeSet);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether there is a version that satisfies all indexed constraints
+     *
+     * @return {@code true} if the constraints do not conflict
+     */
+    public boolean isConsistent() {
+        final int keyCount = keys.size();
+        for (final BitSet covering : segmentKeys) {
+            if (covering.cardinality() == keyCount) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds constraints which have no version in common with the constraint of the given key
+     *
+     * @param key key of the reference constraint
+     * @return keys of conflicting constraints, in the order of index creation
+     * @throws IllegalArgumentException when the key is not indexed
+     */
+    public List<K> conflictsWith(K key) {
+        final int reference = keys.indexOf(key);
+        if (reference < 0) {
+            throw new IllegalArgumentException("Unknown constraint key: " + key);
+        }
+        // Union of keys sharing any segment with the reference constraint
+        final BitSet compatible = new BitSet(keys.size());
+        for (final BitSet covering : segmentKeys) {
+            if (covering.get(reference)) {
+                compatible.or(covering);
+            }
+        }
+        final List<K> result = new ArrayList<>();
+        for (int k = compatible.nextClearBit(0); k < keys.size(); k = compatible.nextClearBit(k + 1)) {
+            result.add(keys.get(k));
+        }
+        return result;
+    }
+
+    private int cutIndex(SemanticVersion version, boolean above) {
+        int low = 0;
+        int high = cutVersions.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int cmp = VersionRangeSet.compareCuts(cutVersions[middle], cutAbove[middle], version, above);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        throw new AssertionError("Cut is not indexed");
+    }
+
+    private static final class Cut {
+        static final Comparator<Cut> ORDER = new Comparator<Cut>() {
+            @Override
+            public int compare(Cut cut1, Cut cut2) {
+                return VersionRangeSet.compareCuts(cut1.version, cut1.above, cut2.version, cut2.above);
+            }
+        };
+
+        final SemanticVersion version;
+        final boolean above;
+
+        Cut(SemanticVersion version, boolean above) {
+            this.version = version;
+            this.above = above;
+        }
+    }
+
+}
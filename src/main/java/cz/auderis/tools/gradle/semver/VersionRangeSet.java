@@ -0,0 +1,344 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of versions formed by disjoint intervals of version precedence. Sets can be
+ * combined by {@link #union(VersionRangeSet)}, {@link #intersect(VersionRangeSet)}
+ * and {@link #complement()}; membership is tested by binary search.
+ * <p>
+ * Unlike {@link VersionConstraint}, a range set is a plain set of precedence intervals:
+ * a pre-release version belongs to it whenever its precedence lies within an interval.
+ * Versions differing only in build metadata are not distinguished.
+ * <p>
+ * Internally, the set is a sorted sequence of <em>cuts</em>. A cut lies either just below
+ * or just above a version, or at one of the infinities; intervals span from a cut
+ * at an even index to the following cut.
+ */
+public final class VersionRangeSet {
+
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final VersionRangeSet EMPTY = new VersionRangeSet(new SemanticVersion[0], new boolean[0]);
+    private static final VersionRangeSet ALL = new VersionRangeSet(new SemanticVersion[] { null, null }, new boolean[] { false, true });
+
+    // Cut i lies just above (cutAbove[i]) or just below cutVersions[i]; null version denotes
+    // negative infinity (when below) or positive infinity (when above)
+    final SemanticVersion[] cutVersions;
+    final boolean[] cutAbove;
+
+    private VersionRangeSet(SemanticVersion[] cutVersions, boolean[] cutAbove) {
+        assert cutVersions.length == cutAbove.length;
+        assert 0 == (cutVersions.length & 1);
+        this.cutVersions = cutVersions;
+        this.cutAbove = cutAbove;
+    }
+
+    public static VersionRangeSet empty() {
+        return EMPTY;
+    }
+
+    public static VersionRangeSet all() {
+        return ALL;
+    }
+
+    /**
+     * Creates a set with a single interval
+     *
+     * @param lower lower bound or {@code null} for unbounded interval
+     * @param lowerInclusive whether the lower bound belongs to the interval
+     * @param upper upper bound or {@code null} for unbounded interval
+     * @param upperInclusive whether the upper bound belongs to the interval
+     * @return set of versions in the interval
+     */
+    public static VersionRangeSet interval(SemanticVersion lower, boolean lowerInclusive, SemanticVersion upper, boolean upperInclusive) {
+        final boolean startAbove = (null != lower) && !lowerInclusive;
+        final boolean endAbove = (null == upper) || upperInclusive;
+        if (compareCuts(lower, startAbove, upper, endAbove) >= 0) {
+            return EMPTY;
+        }
+        return new VersionRangeSet(new SemanticVersion[] { lower, upper }, new boolean[] { startAbove, endAbove });
+    }
+
+    /**
+     * Creates a set of versions within precedence intervals of the constraint. Note that
+     * unlike the constraint itself, the set contains all pre-release versions from the intervals.
+     *
+     * @param constraint version constraint
+     * @return union of constraint ranges
+     */
+    public static VersionRangeSet of(VersionConstraint constraint) {
+        if (null == constraint) {
+            throw new NullPointerException("Version constraint is not specified");
+        }
+        VersionRangeSet result = EMPTY;
+        for (int i = 0; i < constraint.lowerBounds.length; ++i) {
+            final VersionRangeSet range = interval(constraint.lowerBounds[i], constraint.lowerInclusive[i],
+                    constraint.upperBounds[i], constraint.upperInclusive[i]);
+            result = result.union(range);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a set of versions within precedence intervals of the constraint specification
+     *
+     * @param constraintSpecification constraint specification, see {@link VersionConstraint}
+     * @return union of constraint ranges
+     */
+    public static VersionRangeSet of(String constraintSpecification) {
+        return of(VersionConstraint.parse(constraintSpecification));
+    }
+
+    public boolean isEmpty() {
+        return 0 == cutVersions.length;
+    }
+
+    public boolean isAll() {
+        return (2 == cutVersions.length) && (null == cutVersions[0]) && (null == cutVersions[1]);
+    }
+
+    /**
+     * Returns the number of disjoint intervals forming this set
+     *
+     * @return number of intervals
+     */
+    public int getIntervalCount() {
+        return cutVersions.length >>> 1;
+    }
+
+    /**
+     * Checks whether the version belongs to this set; the cost is logarithmic in the number of intervals
+     *
+     * @param version version to check
+     * @return {@code true} if version precedence lies within one of the intervals
+     */
+    public boolean contains(SemanticVersion version) {
+        if (null == version) {
+            throw new NullPointerException("Version is not specified");
+        }
+        return 0 != (countCutsBelow(cutVersions, cutAbove, cutVersions.length, version) & 1);
+    }
+
+    public VersionRangeSet union(VersionRangeSet other) {
+        return combine(other, UNION);
+    }
+
+    public VersionRangeSet intersect(VersionRangeSet other) {
+        return combine(other, INTERSECTION);
+    }
+
+    public VersionRangeSet complement() {
+        final int length = cutVersions.length;
+        if (0 == length) {
+            return ALL;
+        }
+        final boolean startsAtInfinity = (null == cutVersions[0]);
+        final boolean endsAtInfinity = (null == cutVersions[length - 1]);
+        final int resultLength = length + (startsAtInfinity ? -1 : 1) + (endsAtInfinity ? -1 : 1);
+        if (0 == resultLength) {
+            return EMPTY;
+        }
+        final SemanticVersion[] versions = new SemanticVersion[resultLength];
+        final boolean[] above = new boolean[resultLength];
+        int target = 0;
+        if (!startsAtInfinity) {
+            // Negative infinity
+            ++target;
+        }
+        final int from = startsAtInfinity ? 1 : 0;
+        final int to = endsAtInfinity ? length - 1 : length;
+        System.arraycopy(cutVersions, from, versions, target, to - from);
+        System.arraycopy(cutAbove, from, above, target, to - from);
+        if (!endsAtInfinity) {
+            above[resultLength - 1] = true;
+        }
+        return new VersionRangeSet(versions, above);
+    }
+
+    /**
+     * Checks whether there is a version that belongs to both sets
+     *
+     * @param other other set
+     * @return {@code true} if the sets overlap
+     */
+    public boolean intersects(VersionRangeSet other) {
+        return !intersect(other).isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (!(obj instanceof VersionRangeSet)) {
+            return false;
+        }
+        final VersionRangeSet other = (VersionRangeSet) obj;
+        final int length = cutVersions.length;
+        if (length != other.cutVersions.length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (0 != compareCuts(cutVersions[i], cutAbove[i], other.cutVersions[i], other.cutAbove[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < cutVersions.length; ++i) {
+            final SemanticVersion version = cutVersions[i];
+            // Build metadata does not take part in precedence, nor in hash code
+            hash = 31 * hash + ((null != version) ? version.hashCode() : 0);
+            hash = 2 * hash + (cutAbove[i] ? 1 : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Renders the set using the syntax of {@link VersionConstraint}
+     *
+     * @return text representation of the set
+     */
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "<0.0.0-0";
+        } else if (isAll()) {
+            return "*";
+        }
+        final StringBuilder str = new StringBuilder(24 * cutVersions.length);
+        for (int i = 0; i < cutVersions.length; i += 2) {
+            if (0 != i) {
+                str.append(" || ");
+            }
+            final SemanticVersion lower = cutVersions[i];
+            final SemanticVersion upper = cutVersions[i + 1];
+            if (null != lower) {
+                str.append(cutAbove[i] ? ">" : ">=").append(lower);
+            }
+            if (null != upper) {
+                if (null != lower) {
+                    str.append(' ');
+                }
+                str.append(cutAbove[i + 1] ? "<=" : "<").append(upper);
+            }
+        }
+        return str.toString();
+    }
+
+    private VersionRangeSet combine(VersionRangeSet other, int operation) {
+        if (null == other) {
+            throw new NullPointerException("Version range set is not specified");
+        }
+        final SemanticVersion[] versions1 = cutVersions;
+        final SemanticVersion[] versions2 = other.cutVersions;
+        final int length1 = versions1.length;
+        final int length2 = versions2.length;
+        final SemanticVersion[] resultVersions = new SemanticVersion[length1 + length2];
+        final boolean[] resultAbove = new boolean[length1 + length2];
+        int resultLength = 0;
+        boolean inside1 = false;
+        boolean inside2 = false;
+        boolean inside = false;
+        int i = 0;
+        int j = 0;
+        while ((i < length1) || (j < length2)) {
+            final int cmp;
+            if (i == length1) {
+                cmp = 1;
+            } else if (j == length2) {
+                cmp = -1;
+            } else {
+                cmp = compareCuts(versions1[i], cutAbove[i], versions2[j], other.cutAbove[j]);
+            }
+            final SemanticVersion cutVersion;
+            final boolean cutIsAbove;
+            if (cmp <= 0) {
+                cutVersion = versions1[i];
+                cutIsAbove = cutAbove[i];
+                inside1 = !inside1;
+                ++i;
+            } else {
+                cutVersion = versions2[j];
+                cutIsAbove = other.cutAbove[j];
+            }
+            if (cmp >= 0) {
+                inside2 = !inside2;
+                ++j;
+            }
+            final boolean resultInside = (UNION == operation) ? (inside1 || inside2) : (inside1 && inside2);
+            if (resultInside != inside) {
+                resultVersions[resultLength] = cutVersion;
+                resultAbove[resultLength] = cutIsAbove;
+                ++resultLength;
+                inside = resultInside;
+            }
+        }
+        if (0 == resultLength) {
+            return EMPTY;
+        }
+        return new VersionRangeSet(Arrays.copyOf(resultVersions, resultLength), Arrays.copyOf(resultAbove, resultLength));
+    }
+
+    /**
+     * Returns the number of cuts that lie below the version, i.e. index of the first cut above it
+     */
+    static int countCutsBelow(SemanticVersion[] versions, boolean[] above, int length, SemanticVersion version) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (isCutBelow(versions[middle], above[middle], version)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isCutBelow(SemanticVersion cutVersion, boolean cutAbove, SemanticVersion version) {
+        if (null == cutVersion) {
+            return !cutAbove;
+        }
+        final int cmp = SemanticVersion.comparePrecedence(cutVersion, version);
+        return (cmp < 0) || ((0 == cmp) && !cutAbove);
+    }
+
+    static int compareCuts(SemanticVersion version1, boolean above1, SemanticVersion version2, boolean above2) {
+        if (null == version1) {
+            if (null == version2) {
+                return (above1 == above2) ? 0 : (above1 ? 1 : -1);
+            }
+            return above1 ? 1 : -1;
+        } else if (null == version2) {
+            return above2 ? -1 : 1;
+        }
+        final int cmp = SemanticVersion.comparePrecedence(version1, version2);
+        if (0 != cmp) {
+            return cmp;
+        }
+        return (above1 == above2) ? 0 : (above1 ? 1 : -1);
+    }
+
+}
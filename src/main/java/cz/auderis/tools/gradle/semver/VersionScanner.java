@@ -0,0 +1,446 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.GradleException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Lazy iterator over semantic versions occurring in free text, such as changelogs or build logs.
+ * The text is read through a fixed-size buffer, so memory use does not depend on the size of input.
+ * <p>
+ * The text is split into words formed by letters, digits and characters {@code .+-}. A version
+ * starts with a digit at the beginning of a word or after a letter, hyphen or plus sign (so that
+ * {@code v1.2.3} and {@code lib-1.2.3.jar} are recognized), and it extends as far as identifiers
+ * allow; a trailing dot or hyphen separator is not part of the version. Two heuristics keep common
+ * file names and ranges apart: a known file extension at the end of a word (e.g. {@code .jar} in
+ * {@code lib-1.0.0-SNAPSHOT.jar}) is not taken as an identifier, and a hyphen followed by another
+ * {@code X.Y.Z} version (e.g. {@code 1.0.0-2.0.0}) separates two versions. Words with 4 or more
+ * numeric parts (e.g. {@code 1.2.3.4}) or invalid numbers (e.g. {@code 1.02.3}) are skipped,
+ * as are words longer than {@value #MAX_WORD_LENGTH} characters.
+ * <p>
+ * Read errors are reported by {@link GradleException}. The scanner closes the reader when the end
+ * of input is reached; it should be closed explicitly when the iteration is abandoned.
+ */
+public final class VersionScanner implements Iterator<VersionScanner.Match>, Closeable {
+
+    static final int MAX_WORD_LENGTH = 256;
+    private static final Set<String> FILE_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "jar", "war", "ear", "aar", "pom", "zip", "tar", "tgz", "gz", "xz", "txt", "md", "xml", "json",
+            "exe", "msi", "dmg", "deb", "rpm", "apk", "whl", "module", "log"
+    ));
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int bufferPosition;
+    private int bufferLimit;
+    private boolean endOfInput;
+    // Absolute offset and line of the next unread character
+    private long offset;
+    private long line;
+    private final char[] word;
+    private final CharBuffer wordView;
+    private int wordLength;
+    private int wordPosition;
+    private long wordOffset;
+    private long wordLine;
+    private Match nextMatch;
+
+    VersionScanner(Reader reader) {
+        if (null == reader) {
+            throw new NullPointerException("Reader is not specified");
+        }
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        this.word = new char[MAX_WORD_LENGTH];
+        this.wordView = CharBuffer.wrap(word);
+        this.line = 1L;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (null == nextMatch) {
+            try {
+                nextMatch = findNext();
+            } catch (IOException e) {
+                throw new GradleException("Cannot read text with semantic versions", e);
+            }
+        }
+        return null != nextMatch;
+    }
+
+    @Override
+    public Match next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Match result = nextMatch;
+        nextMatch = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        endOfInput = true;
+        bufferPosition = bufferLimit;
+        wordPosition = wordLength;
+        reader.close();
+    }
+
+    private Match findNext() throws IOException {
+        while (true) {
+            while (wordPosition < wordLength) {
+                final Match match = matchInWord();
+                if (null != match) {
+                    return match;
+                }
+            }
+            if (!readWord()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Looks for a version starting at the current word position; the position is advanced
+     * past the version or to the next possible start of a version
+     */
+    private Match matchInWord() {
+        final int start = wordPosition;
+        final char first = word[start];
+        if (!isDigit(first) || ((start > 0) && !canPrecedeVersion(word[start - 1]))) {
+            ++wordPosition;
+            return null;
+        }
+        final int end = findVersionEnd(start);
+        if (end < 0) {
+            // Skip the whole numeric part
+            int pos = start;
+            while ((pos < wordLength) && (isDigit(word[pos]) || ('.' == word[pos]))) {
+                ++pos;
+            }
+            wordPosition = pos;
+            return null;
+        }
+        wordPosition = end;
+        final SemanticVersion version = SemanticVersionParser.parse(wordView, start, end);
+        if (null == version) {
+            return null;
+        }
+        return new Match(version, wordOffset + start, wordOffset + end, wordLine);
+    }
+
+    /**
+     * Finds the end of the longest valid version starting at the position
+     *
+     * @return position after the version or -1 if there is no valid version
+     */
+    private int findVersionEnd(int start) {
+        int pos = start;
+        for (int part = 0; part < 3; ++part) {
+            final int numberEnd = scanNumber(pos);
+            if (numberEnd < 0) {
+                return -1;
+            } else if (part < 2) {
+                if ((numberEnd == wordLength) || ('.' != word[numberEnd])) {
+                    return -1;
+                }
+                pos = numberEnd + 1;
+            } else {
+                pos = numberEnd;
+            }
+        }
+        if (pos == wordLength) {
+            return pos;
+        }
+        final char next = word[pos];
+        if (('.' == next) && (pos + 1 < wordLength) && isDigit(word[pos + 1])) {
+            // More than 3 numeric parts
+            return -1;
+        } else if (isLetter(next)) {
+            return -1;
+        }
+        if ('-' == next) {
+            if (isRangeSeparator(pos)) {
+                return pos;
+            }
+            final int separator = pos;
+            pos = scanIdentifiers(pos);
+            if (pos < 0) {
+                return -1;
+            } else if (pos == wordLength) {
+                return stripFileExtension(separator, pos);
+            }
+        }
+        if ('+' == word[pos]) {
+            final int separator = pos;
+            pos = scanIdentifiers(pos);
+            if (pos < 0) {
+                return -1;
+            } else if (pos == wordLength) {
+                return stripFileExtension(separator, pos);
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Checks whether a hyphen separates two versions, as in {@code 1.0.0-2.0.0}, rather than
+     * introducing pre-release identifiers
+     */
+    private boolean isRangeSeparator(int hyphenPosition) {
+        int pos = hyphenPosition + 1;
+        for (int part = 0; part < 3; ++part) {
+            pos = scanNumber(pos);
+            if (pos < 0) {
+                return false;
+            } else if (part < 2) {
+                if ((pos == wordLength) || ('.' != word[pos])) {
+                    return false;
+                }
+                ++pos;
+            }
+        }
+        return (pos == wordLength) || ('-' == word[pos]) || ('+' == word[pos]);
+    }
+
+    /**
+     * Excludes a known file extension that ends the word from identifiers following the separator,
+     * as in {@code lib-1.0.0-SNAPSHOT.jar}
+     *
+     * @return position of the end of version
+     */
+    private int stripFileExtension(int separatorPosition, int end) {
+        int dot = end - 1;
+        while ((dot > separatorPosition) && isLetter(word[dot])) {
+            --dot;
+        }
+        if ((dot == end - 1) || (dot <= separatorPosition + 1) || ('.' != word[dot])) {
+            return end;
+        }
+        final String segment = new String(word, dot + 1, end - dot - 1).toLowerCase(Locale.ROOT);
+        return FILE_EXTENSIONS.contains(segment) ? dot : end;
+    }
+
+    /**
+     * Scans identifiers following a separator ({@code -} or {@code +}) at the position
+     *
+     * @return position after the last identifier, position of the separator if there is no identifier,
+     *         or -1 if an identifier is invalid
+     */
+    private int scanIdentifiers(int separatorPosition) {
+        int end = separatorPosition;
+        int pos = separatorPosition + 1;
+        while ((pos < wordLength) && isIdChar(word[pos]) && ('-' != word[pos])) {
+            final int idStart = pos;
+            while ((pos < wordLength) && isIdChar(word[pos])) {
+                ++pos;
+            }
+            if (('0' == word[idStart]) && (pos - idStart > 1)) {
+                // Same rule as in the parser, no identifier may have a leading zero
+                return -1;
+            }
+            end = pos;
+            if ((pos == wordLength) || ('.' != word[pos])) {
+                break;
+            }
+            ++pos;
+        }
+        return end;
+    }
+
+    private int scanNumber(int pos) {
+        if ((pos >= wordLength) || !isDigit(word[pos])) {
+            return -1;
+        } else if ('0' == word[pos]) {
+            return ((pos + 1 < wordLength) && isDigit(word[pos + 1])) ? -1 : pos + 1;
+        }
+        long value = 0L;
+        while ((pos < wordLength) && isDigit(word[pos])) {
+            value = 10L * value + (word[pos] - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+            ++pos;
+        }
+        return pos;
+    }
+
+    /**
+     * Reads the next word into the word buffer, skipping words that are too long
+     *
+     * @return {@code false} at the end of input
+     */
+    private boolean readWord() throws IOException {
+        wordLength = 0;
+        wordPosition = 0;
+        // Skip separators
+        int c;
+        while ((c = read()) >= 0 && !isWordChar((char) c)) {
+            // Skip
+        }
+        if (c < 0) {
+            return false;
+        }
+        wordOffset = offset - 1;
+        wordLine = line;
+        boolean tooLong = false;
+        while (true) {
+            if (wordLength < MAX_WORD_LENGTH) {
+                word[wordLength++] = (char) c;
+            } else {
+                tooLong = true;
+            }
+            c = peek();
+            if ((c < 0) || !isWordChar((char) c)) {
+                break;
+            }
+            read();
+        }
+        if (tooLong) {
+            wordLength = 0;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if ((bufferPosition == bufferLimit) && !fill()) {
+            return -1;
+        }
+        final char c = buffer[bufferPosition++];
+        ++offset;
+        if ('\n' == c) {
+            ++line;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if ((bufferPosition == bufferLimit) && !fill()) {
+            return -1;
+        }
+        return buffer[bufferPosition];
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int count;
+        while (0 == (count = reader.read(buffer, 0, buffer.length))) {
+            // Reader is not supposed to return 0 for non-empty buffer, but be careful
+        }
+        if (count < 0) {
+            endOfInput = true;
+            reader.close();
+            return false;
+        }
+        bufferPosition = 0;
+        bufferLimit = count;
+        return true;
+    }
+
+    private static boolean canPrecedeVersion(char c) {
+        return isLetter(c) || ('-' == c) || ('+' == c);
+    }
+
+    private static boolean isWordChar(char c) {
+        return SemanticVersionParser.isIdentifierChar(c) || ('.' == c) || ('+' == c);
+    }
+
+    private static boolean isIdChar(char c) {
+        return SemanticVersionParser.isIdentifierChar(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return (c >= '0') && (c <= '9');
+    }
+
+    private static boolean isLetter(char c) {
+        return ((c >= 'A') && (c <= 'Z')) || ((c >= 'a') && (c <= 'z'));
+    }
+
+    /**
+     * Occurrence of a version in scanned text
+     */
+    public static final class Match {
+        private final SemanticVersion version;
+        private final long startOffset;
+        private final long endOffset;
+        private final long line;
+
+        Match(SemanticVersion version, long startOffset, long endOffset, long line) {
+            this.version = version;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.line = line;
+        }
+
+        public SemanticVersion getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns offset of the first character of the version in the text
+         *
+         * @return zero-based character offset
+         */
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        /**
+         * Returns offset after the last character of the version in the text
+         *
+         * @return zero-based character offset
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * Returns number of the line where the version occurs
+         *
+         * @return one-based line number
+         */
+        public long getLine() {
+            return line;
+        }
+
+        @Override
+        public String toString() {
+            return version + " at " + startOffset + ".." + endOffset + " (line " + line + ")";
+        }
+    }
+
+}
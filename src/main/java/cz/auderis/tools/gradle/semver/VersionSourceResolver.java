@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.InvalidUserDataException;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves a version from the first valid of several sources, ordered by priority. Sources are queried
+ * concurrently, but in a hedged manner: a source is started when the previous one fails or does not
+ * complete within the hedge delay. The result of a source is accepted when all sources of higher priority
+ * have failed, or when they have not completed within another hedge delay; the remaining queries are
+ * then cancelled.
+ * <p>
+ * Supported sources are {@link URL}, {@link File}, {@link Path}, {@link InputStream} and text; text is
+ * interpreted as a classpath resource when prefixed by {@value #CLASSPATH_PREFIX}, otherwise as
+ * in {@link SemanticVersion#from(String)}.
+ */
+final class VersionSourceResolver {
+
+    static final String CLASSPATH_PREFIX = "classpath:";
+    static final long DEFAULT_HEDGE_DELAY = 1000L;
+
+    private final VersionUrlLoader urlLoader;
+    private final long hedgeDelay;
+
+    VersionSourceResolver(VersionUrlLoader urlLoader, long hedgeDelay) {
+        assert null != urlLoader;
+        if (hedgeDelay < 0L) {
+            throw new IllegalArgumentException("Invalid hedge delay: " + hedgeDelay);
+        }
+        this.urlLoader = urlLoader;
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    /**
+     * Resolves version from the sources
+     *
+     * @param sources version sources in the order of priority
+     * @return version from the first valid source
+     * @throws InvalidUserDataException when no source provides valid version
+     */
+    SemanticVersion resolve(Object... sources) {
+        if (null == sources) {
+            throw new NullPointerException("Version sources are not specified");
+        } else if (0 == sources.length) {
+            throw new IllegalArgumentException("No version source specified");
+        }
+        final int count = sources.length;
+        final List<Callable<SemanticVersion>> queries = createQueries(sources);
+        if (1 == count) {
+            try {
+                return queries.get(0).call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new InvalidUserDataException("Cannot load version from " + sources[0], e);
+            }
+        }
+        final CompletionService<SemanticVersion> completion = new ExecutorCompletionService<>(ExecutorHolder.EXECUTOR);
+        final List<Future<SemanticVersion>> futures = new ArrayList<>(count);
+        final SemanticVersion[] results = new SemanticVersion[count];
+        final Throwable[] failures = new Throwable[count];
+        try {
+            int started = 0;
+            long nextStartTime = 0L;
+            int candidate = -1;
+            long acceptTime = 0L;
+            while (true) {
+                final int pending = firstPending(results, failures, started);
+                final long now = System.nanoTime();
+                if ((candidate >= 0) && ((pending < 0) || (pending > candidate) || (now - acceptTime >= 0L))) {
+                    // No source of higher priority may still succeed in time
+                    return results[candidate];
+                } else if ((candidate < 0) && (started < count) && ((pending < 0) || (now - nextStartTime >= 0L))) {
+                    futures.add(completion.submit(queries.get(started)));
+                    ++started;
+                    nextStartTime = now + TimeUnit.MILLISECONDS.toNanos(hedgeDelay);
+                    continue;
+                } else if (pending < 0) {
+                    throw allFailed(sources, failures);
+                }
+                final Future<SemanticVersion> completed;
+                if (candidate >= 0) {
+                    completed = completion.poll(acceptTime - now, TimeUnit.NANOSECONDS);
+                } else if (started < count) {
+                    completed = completion.poll(nextStartTime - now, TimeUnit.NANOSECONDS);
+                } else {
+                    completed = completion.take();
+                }
+                if (null == completed) {
+                    continue;
+                }
+                final int index = futures.indexOf(completed);
+                assert index >= 0 : "Unknown future";
+                try {
+                    results[index] = completed.get();
+                    if (candidate < 0) {
+                        acceptTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelay);
+                        candidate = index;
+                    } else if (index < candidate) {
+                        candidate = index;
+                    }
+                } catch (ExecutionException e) {
+                    failures[index] = e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidUserDataException("Version resolution was interrupted", e);
+        } finally {
+            for (final Future<SemanticVersion> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private List<Callable<SemanticVersion>> createQueries(Object[] sources) {
+        final List<Callable<SemanticVersion>> queries = new ArrayList<>(sources.length);
+        for (final Object source : sources) {
+            queries.add(createQuery(source));
+        }
+        return queries;
+    }
+
+    private Callable<SemanticVersion> createQuery(final Object source) {
+        if (source instanceof URL) {
+            return new Callable<SemanticVersion>() {
+                @Override
+                public SemanticVersion call() {
+                    return urlLoader.load((URL) source);
+                }
+            };
+        } else if (source instanceof File) {
+            return new Callable<SemanticVersion>() {
+                @Override
+                public SemanticVersion call() {
+                    return SemanticVersion.from((File) source);
+                }
+            };
+        } else if (source instanceof Path) {
+            return new Callable<SemanticVersion>() {
+                @Override
+                public SemanticVersion call() {
+                    return SemanticVersion.from((Path) source);
+                }
+            };
+        } else if (source instanceof InputStream) {
+            return new Callable<SemanticVersion>() {
+                @Override
+                public SemanticVersion call() {
+                    return SemanticVersion.from((InputStream) source);
+                }
+            };
+        } else if (source instanceof CharSequence) {
+            final String text = source.toString();
+            if (text.startsWith(CLASSPATH_PREFIX)) {
+                // Pool threads outlive builds, use class loader of the calling build thread
+                final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+                return new Callable<SemanticVersion>() {
+                    @Override
+                    public SemanticVersion call() {
+                        return fromResource(text.substring(CLASSPATH_PREFIX.length()), contextClassLoader);
+                    }
+                };
+            }
+            return new Callable<SemanticVersion>() {
+                @Override
+                public SemanticVersion call() {
+                    return SemanticVersion.from(text, urlLoader);
+                }
+            };
+        } else if (null == source) {
+            throw new NullPointerException("Version source is not specified");
+        }
+        throw new IllegalArgumentException("Unsupported version source: " + source);
+    }
+
+    private static SemanticVersion fromResource(String resourceName, ClassLoader contextClassLoader) {
+        final String name = resourceName.startsWith("/") ? resourceName.substring(1) : resourceName;
+        final ClassLoader classLoader = (null != contextClassLoader)
+                ? contextClassLoader
+                : VersionSourceResolver.class.getClassLoader();
+        final InputStream stream = classLoader.getResourceAsStream(name);
+        if (null == stream) {
+            throw new InvalidUserDataException("Cannot find version resource " + resourceName);
+        }
+        return SemanticVersion.from(stream);
+    }
+
+    private static int firstPending(SemanticVersion[] results, Throwable[] failures, int started) {
+        for (int i = 0; i < started; ++i) {
+            if ((null == results[i]) && (null == failures[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static InvalidUserDataException allFailed(Object[] sources, Throwable[] failures) {
+        final StringBuilder message = new StringBuilder("Cannot load version from any source:");
+        for (int i = 0; i < sources.length; ++i) {
+            message.append("\n  ").append(sources[i]).append(": ").append(failures[i].getMessage());
+        }
+        final InvalidUserDataException error = new InvalidUserDataException(message.toString(), failures[0]);
+        for (int i = 1; i < failures.length; ++i) {
+            error.addSuppressed(failures[i]);
+        }
+        return error;
+    }
+
+    private static final class ExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable task) {
+                final Thread thread = new Thread(task, "semantic-version-source-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                // Do not keep class loader of the build that happened to create the thread
+                thread.setContextClassLoader(null);
+                return thread;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,662 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.InvalidUserDataException;
+
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Column-oriented table of semantic versions, intended for analysis of very large sets of versions
+ * (e.g. all artifact versions of a repository) where a {@link SemanticVersion} object per version
+ * would be too expensive. Major, minor and patch numbers are kept in {@code int} columns, pre-release
+ * and snapshot flags in bit sets, and identifiers in a single character pool shared by all rows;
+ * a row with no identifiers therefore takes about 24 bytes.
+ * <p>
+ * Aggregate queries ({@link #countStable()}, {@link #getMajorHistogram()} etc.) are simple loops over
+ * the columns, and {@link #sortedOrder()} sorts rows by precedence without creating version objects.
+ * Rows are addressed by their index, in the order of insertion. The table is not thread-safe.
+ */
+public final class VersionTable {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int DENSE_HISTOGRAM_LIMIT = 1 << 16;
+    private static final int COMPARISON_SORT_THRESHOLD = 48;
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    // 4 digits of patch key (patch number and release flag), 4 digits of minor, 4 digits of major
+    private static final int PASSES = 12;
+    private static final char[] SNAPSHOT_CHARS = SemanticVersion.SNAPSHOT_ID.toCharArray();
+
+    private int size;
+    private int[] majors;
+    private int[] minors;
+    private int[] patches;
+    private long[] preReleaseFlags;
+    private long[] snapshotFlags;
+    // Identifiers of a row occupy a range of the pool starting at idOffsets[row]: pre-release
+    // identifiers followed by build metadata identifiers, both without the leading separator
+    private int[] idOffsets;
+    private int[] preReleaseLengths;
+    private int[] buildMetadataLengths;
+    private char[] pool;
+    private int poolSize;
+
+    public VersionTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public VersionTable(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + initialCapacity);
+        }
+        final int capacity = Math.max(initialCapacity, 1);
+        this.majors = new int[capacity];
+        this.minors = new int[capacity];
+        this.patches = new int[capacity];
+        this.preReleaseFlags = new long[flagWords(capacity)];
+        this.snapshotFlags = new long[flagWords(capacity)];
+        this.idOffsets = new int[capacity];
+        this.preReleaseLengths = new int[capacity];
+        this.buildMetadataLengths = new int[capacity];
+        this.pool = new char[4 * capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    /**
+     * Appends the version to the table
+     *
+     * @param version version to append
+     * @return index of the new row
+     */
+    public int add(SemanticVersion version) {
+        if (null == version) {
+            throw new NullPointerException("Version is not specified");
+        }
+        final int row = newRow(version.major, version.minor, version.patch);
+        preReleaseLengths[row] = appendIds(version.preReleaseIdentifiers);
+        buildMetadataLengths[row] = appendIds(version.buildMetadataIdentifiers);
+        updateFlags(row);
+        return row;
+    }
+
+    /**
+     * Parses the version specification directly into a new row, without creating a {@link SemanticVersion}
+     *
+     * @param specification text representation of semantic version
+     * @return index of the new row
+     * @throws InvalidUserDataException when {@code specification} does not conform to semantic version rules
+     */
+    public int add(CharSequence specification) {
+        if (null == specification) {
+            throw new NullPointerException("Semantic version is not specified");
+        }
+        final int length = specification.length();
+        if (!SemanticVersionParser.isValid(specification, 0, length)) {
+            // Report the problem the same way as the regular parser
+            SemanticVersionParser.parseSpecification(specification);
+            throw new InvalidUserDataException("Invalid semantic version specification: " + specification);
+        }
+        // The specification is valid, so the scanning below need not check anything
+        int pos = SemanticVersionParser.skipWhitespace(specification, 0, length);
+        final int limit = SemanticVersionParser.trimWhitespace(specification, pos, length);
+        final int[] numbers = new int[3];
+        for (int part = 0; part < 3; ++part) {
+            int value = 0;
+            char c;
+            while ((pos < limit) && ((c = specification.charAt(pos)) >= '0') && (c <= '9')) {
+                value = 10 * value + (c - '0');
+                ++pos;
+            }
+            numbers[part] = value;
+            if (part < 2) {
+                ++pos;
+            }
+        }
+        final int row = newRow(numbers[0], numbers[1], numbers[2]);
+        int preReleaseLength = 0;
+        if ((pos < limit) && ('-' == specification.charAt(pos))) {
+            final int start = ++pos;
+            while ((pos < limit) && ('+' != specification.charAt(pos))) {
+                ++pos;
+            }
+            preReleaseLength = appendChars(specification, start, pos);
+        }
+        int buildMetadataLength = 0;
+        if (pos < limit) {
+            buildMetadataLength = appendChars(specification, pos + 1, limit);
+        }
+        preReleaseLengths[row] = preReleaseLength;
+        buildMetadataLengths[row] = buildMetadataLength;
+        updateFlags(row);
+        return row;
+    }
+
+    public int getMajor(int row) {
+        checkRow(row);
+        return majors[row];
+    }
+
+    public int getMinor(int row) {
+        checkRow(row);
+        return minors[row];
+    }
+
+    public int getPatch(int row) {
+        checkRow(row);
+        return patches[row];
+    }
+
+    /**
+     * Indicates whether the row represents unstable version, in the sense of {@link SemanticVersion#isPreRelease()}
+     *
+     * @param row row index
+     * @return {@code true} if major version is 0 and/or there are any pre-release identifiers
+     */
+    public boolean isPreRelease(int row) {
+        checkRow(row);
+        return (0 == majors[row]) || isSet(preReleaseFlags, row);
+    }
+
+    public boolean isStable(int row) {
+        checkRow(row);
+        return (0 != majors[row]) && !isSet(preReleaseFlags, row);
+    }
+
+    public boolean isSnapshot(int row) {
+        checkRow(row);
+        return isSet(snapshotFlags, row);
+    }
+
+    /**
+     * Returns dot-separated pre-release identifiers of the row
+     *
+     * @param row row index
+     * @return pre-release identifiers or an empty string
+     */
+    public String getPreRelease(int row) {
+        checkRow(row);
+        return new String(pool, idOffsets[row], preReleaseLengths[row]);
+    }
+
+    public String getBuildMetadata(int row) {
+        checkRow(row);
+        return new String(pool, idOffsets[row] + preReleaseLengths[row], buildMetadataLengths[row]);
+    }
+
+    /**
+     * Creates version object for the row
+     *
+     * @param row row index
+     * @return version stored in the row
+     */
+    public SemanticVersion get(int row) {
+        checkRow(row);
+        final SemanticVersion result = new SemanticVersion(majors[row], minors[row], patches[row]);
+        final int offset = idOffsets[row];
+        result.preReleaseIdentifiers = splitIds(offset, preReleaseLengths[row]);
+        result.buildMetadataIdentifiers = splitIds(offset + preReleaseLengths[row], buildMetadataLengths[row]);
+        result.updatePrecedenceKey();
+        return result;
+    }
+
+    public String toString(int row) {
+        checkRow(row);
+        final StringBuilder str = new StringBuilder(16 + preReleaseLengths[row] + buildMetadataLengths[row]);
+        appendTo(str, row);
+        return str.toString();
+    }
+
+    /**
+     * Counts stable versions in the sense of {@link SemanticVersion#isStable()}
+     *
+     * @return number of stable versions
+     */
+    public int countStable() {
+        final int[] majors = this.majors;
+        final long[] flags = preReleaseFlags;
+        int count = 0;
+        for (int row = 0; row < size; ++row) {
+            final int stable = (int) (~flags[row >>> 6] >>> row) & 1;
+            count += (0 != majors[row]) ? stable : 0;
+        }
+        return count;
+    }
+
+    public int countSnapshots() {
+        return countFlags(snapshotFlags);
+    }
+
+    /**
+     * Counts rows by major version number
+     *
+     * @return number of rows for every major version number that occurs in the table
+     */
+    public SortedMap<Integer, Integer> getMajorHistogram() {
+        final SortedMap<Integer, Integer> result = new TreeMap<>();
+        if (0 == size) {
+            return result;
+        }
+        int maxMajor = 0;
+        for (int row = 0; row < size; ++row) {
+            maxMajor = Math.max(maxMajor, majors[row]);
+        }
+        if (maxMajor < DENSE_HISTOGRAM_LIMIT) {
+            final int[] counts = new int[maxMajor + 1];
+            for (int row = 0; row < size; ++row) {
+                ++counts[majors[row]];
+            }
+            for (int major = 0; major <= maxMajor; ++major) {
+                if (0 != counts[major]) {
+                    result.put(major, counts[major]);
+                }
+            }
+        } else {
+            // Sparse major numbers (e.g. dates), count runs of sorted copy
+            final int[] sorted = Arrays.copyOf(majors, size);
+            Arrays.sort(sorted);
+            int runStart = 0;
+            for (int i = 1; i <= size; ++i) {
+                if ((i == size) || (sorted[i] != sorted[runStart])) {
+                    result.put(sorted[runStart], i - runStart);
+                    runStart = i;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorts rows by precedence, see {@link SemanticVersion#compareTo(SemanticVersion)}. The rows
+     * are ordered by LSD radix passes over the numeric columns, comparison of identifiers is
+     * used only among pre-release rows with the same major-minor-patch triple. The sort is stable.
+     *
+     * @return row indices in ascending order of precedence
+     */
+    public int[] sortedOrder() {
+        final int[] order = new int[size];
+        for (int row = 0; row < size; ++row) {
+            order[row] = row;
+        }
+        if (size < 2) {
+            return order;
+        }
+        final int[] buffer = new int[size];
+        if (size < COMPARISON_SORT_THRESHOLD) {
+            mergeSort(order, 0, size, buffer);
+            return order;
+        }
+        final int[][] counts = new int[PASSES][RADIX];
+        for (int row = 0; row < size; ++row) {
+            for (int pass = 0; pass < PASSES; ++pass) {
+                ++counts[pass][digitOf(row, pass)];
+            }
+        }
+        int[] source = order;
+        int[] target = buffer;
+        for (int pass = 0; pass < PASSES; ++pass) {
+            final int[] count = counts[pass];
+            if (count[digitOf(source[0], pass)] == size) {
+                // All rows share the same digit, the pass would not change anything
+                continue;
+            }
+            int offset = 0;
+            for (int d = 0; d < RADIX; ++d) {
+                final int c = count[d];
+                count[d] = offset;
+                offset += c;
+            }
+            for (int i = 0; i < size; ++i) {
+                final int row = source[i];
+                target[count[digitOf(row, pass)]++] = row;
+            }
+            final int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        if (source != order) {
+            System.arraycopy(source, 0, order, 0, size);
+        }
+        sortPreReleaseGroups(order, buffer);
+        return order;
+    }
+
+    /**
+     * Compares precedence of versions in two rows
+     *
+     * @param row1 index of the first row
+     * @param row2 index of the second row
+     * @return negative number, zero or positive number if the first version has lower, equal
+     *         or higher precedence, respectively
+     */
+    public int compareRows(int row1, int row2) {
+        checkRow(row1);
+        checkRow(row2);
+        return compare(row1, row2);
+    }
+
+    private int compare(int row1, int row2) {
+        if (majors[row1] != majors[row2]) {
+            return (majors[row1] < majors[row2]) ? -1 : 1;
+        } else if (minors[row1] != minors[row2]) {
+            return (minors[row1] < minors[row2]) ? -1 : 1;
+        } else if (patches[row1] != patches[row2]) {
+            return (patches[row1] < patches[row2]) ? -1 : 1;
+        }
+        final int length1 = preReleaseLengths[row1];
+        final int length2 = preReleaseLengths[row2];
+        if ((0 == length1) || (0 == length2)) {
+            return (length1 == length2) ? 0 : ((0 == length1) ? 1 : -1);
+        }
+        return comparePreRelease(idOffsets[row1], length1, idOffsets[row2], length2);
+    }
+
+    /**
+     * Compares dot-separated pre-release identifiers stored in the pool
+     */
+    private int comparePreRelease(int pos1, int length1, int pos2, int length2) {
+        final char[] pool = this.pool;
+        final int end1 = pos1 + length1;
+        final int end2 = pos2 + length2;
+        while (true) {
+            int idEnd1 = pos1;
+            boolean numeric1 = true;
+            while ((idEnd1 < end1) && ('.' != pool[idEnd1])) {
+                numeric1 &= isDigit(pool[idEnd1++]);
+            }
+            int idEnd2 = pos2;
+            boolean numeric2 = true;
+            while ((idEnd2 < end2) && ('.' != pool[idEnd2])) {
+                numeric2 &= isDigit(pool[idEnd2++]);
+            }
+            if (numeric1 != numeric2) {
+                return numeric1 ? -1 : 1;
+            }
+            final int idLength1 = idEnd1 - pos1;
+            final int idLength2 = idEnd2 - pos2;
+            if (numeric1 && (idLength1 != idLength2)) {
+                // Numeric identifiers have no leading zeros, so longer number is greater
+                return (idLength1 < idLength2) ? -1 : 1;
+            }
+            final int commonLength = Math.min(idLength1, idLength2);
+            for (int i = 0; i < commonLength; ++i) {
+                final char c1 = pool[pos1 + i];
+                final char c2 = pool[pos2 + i];
+                if (c1 != c2) {
+                    return (c1 < c2) ? -1 : 1;
+                }
+            }
+            if (idLength1 != idLength2) {
+                return (idLength1 < idLength2) ? -1 : 1;
+            }
+            final boolean more1 = idEnd1 < end1;
+            final boolean more2 = idEnd2 < end2;
+            if (!more1 || !more2) {
+                return (more1 == more2) ? 0 : (more1 ? 1 : -1);
+            }
+            pos1 = idEnd1 + 1;
+            pos2 = idEnd2 + 1;
+        }
+    }
+
+    private void sortPreReleaseGroups(int[] order, int[] buffer) {
+        int groupStart = 0;
+        while (groupStart < size) {
+            final int first = order[groupStart];
+            int groupEnd = groupStart + 1;
+            while ((groupEnd < size)
+                    && (patches[order[groupEnd]] == patches[first])
+                    && (minors[order[groupEnd]] == minors[first])
+                    && (majors[order[groupEnd]] == majors[first])
+                    && ((0 == preReleaseLengths[order[groupEnd]]) == (0 == preReleaseLengths[first]))) {
+                ++groupEnd;
+            }
+            if ((groupEnd - groupStart > 1) && (0 != preReleaseLengths[first])) {
+                mergeSort(order, groupStart, groupEnd, buffer);
+            }
+            groupStart = groupEnd;
+        }
+    }
+
+    private void mergeSort(int[] order, int from, int to, int[] buffer) {
+        if (to - from < 8) {
+            // Insertion sort
+            for (int i = from + 1; i < to; ++i) {
+                final int row = order[i];
+                int j = i;
+                while ((j > from) && (compare(order[j - 1], row) > 0)) {
+                    order[j] = order[j - 1];
+                    --j;
+                }
+                order[j] = row;
+            }
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        mergeSort(order, from, middle, buffer);
+        mergeSort(order, middle, to, buffer);
+        if (compare(order[middle - 1], order[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, middle - from);
+        int left = from;
+        int right = middle;
+        int target = from;
+        while ((left < middle) && (right < to)) {
+            if (compare(buffer[left], order[right]) <= 0) {
+                order[target++] = buffer[left++];
+            } else {
+                order[target++] = order[right++];
+            }
+        }
+        System.arraycopy(buffer, left, order, target, middle - left);
+    }
+
+    private int digitOf(int row, int pass) {
+        final int value;
+        final int shift;
+        if (pass < 4) {
+            // Patch key: release rows follow pre-release rows of the same patch
+            final long patchKey = ((long) patches[row] << 1) | ((0 == preReleaseLengths[row]) ? 1L : 0L);
+            return (int) (patchKey >>> (pass * DIGIT_BITS)) & DIGIT_MASK;
+        } else if (pass < 8) {
+            value = minors[row];
+            shift = (pass - 4) * DIGIT_BITS;
+        } else {
+            value = majors[row];
+            shift = (pass - 8) * DIGIT_BITS;
+        }
+        return (value >>> shift) & DIGIT_MASK;
+    }
+
+    private void appendTo(StringBuilder str, int row) {
+        str.append(majors[row]).append('.').append(minors[row]).append('.').append(patches[row]);
+        final int offset = idOffsets[row];
+        final int preReleaseLength = preReleaseLengths[row];
+        if (0 != preReleaseLength) {
+            str.append('-').append(pool, offset, preReleaseLength);
+        }
+        final int buildMetadataLength = buildMetadataLengths[row];
+        if (0 != buildMetadataLength) {
+            str.append('+').append(pool, offset + preReleaseLength, buildMetadataLength);
+        }
+    }
+
+    private String[] splitIds(int offset, int length) {
+        if (0 == length) {
+            return SemanticVersion.NO_IDS;
+        }
+        final int end = offset + length;
+        int count = 1;
+        for (int i = offset; i < end; ++i) {
+            if ('.' == pool[i]) {
+                ++count;
+            }
+        }
+        final String[] ids = new String[count];
+        int idStart = offset;
+        int n = 0;
+        for (int i = offset; i <= end; ++i) {
+            if ((i == end) || ('.' == pool[i])) {
+                ids[n++] = SemanticVersionParser.internIdentifier(new String(pool, idStart, i - idStart));
+                idStart = i + 1;
+            }
+        }
+        return ids;
+    }
+
+    private int newRow(int major, int minor, int patch) {
+        if (size == majors.length) {
+            grow();
+        }
+        final int row = size++;
+        majors[row] = major;
+        minors[row] = minor;
+        patches[row] = patch;
+        idOffsets[row] = poolSize;
+        return row;
+    }
+
+    private void grow() {
+        final int capacity = majors.length + (majors.length >>> 1) + 1;
+        majors = Arrays.copyOf(majors, capacity);
+        minors = Arrays.copyOf(minors, capacity);
+        patches = Arrays.copyOf(patches, capacity);
+        preReleaseFlags = Arrays.copyOf(preReleaseFlags, flagWords(capacity));
+        snapshotFlags = Arrays.copyOf(snapshotFlags, flagWords(capacity));
+        idOffsets = Arrays.copyOf(idOffsets, capacity);
+        preReleaseLengths = Arrays.copyOf(preReleaseLengths, capacity);
+        buildMetadataLengths = Arrays.copyOf(buildMetadataLengths, capacity);
+    }
+
+    private void ensurePoolCapacity(int additional) {
+        final int required = poolSize + additional;
+        if (required < 0) {
+            throw new IllegalStateException("Identifier pool is full");
+        } else if (required > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(required, pool.length + (pool.length >>> 1)));
+        }
+    }
+
+    private int appendIds(String[] ids) {
+        if (0 == ids.length) {
+            return 0;
+        }
+        int length = ids.length - 1;
+        for (final String id : ids) {
+            length += id.length();
+        }
+        ensurePoolCapacity(length);
+        for (int i = 0; i < ids.length; ++i) {
+            if (0 != i) {
+                pool[poolSize++] = '.';
+            }
+            final String id = ids[i];
+            id.getChars(0, id.length(), pool, poolSize);
+            poolSize += id.length();
+        }
+        return length;
+    }
+
+    private int appendChars(CharSequence text, int start, int end) {
+        final int length = end - start;
+        ensurePoolCapacity(length);
+        for (int i = start; i < end; ++i) {
+            pool[poolSize++] = text.charAt(i);
+        }
+        return length;
+    }
+
+    private void updateFlags(int row) {
+        final int length = preReleaseLengths[row];
+        if (0 == length) {
+            return;
+        }
+        setFlag(preReleaseFlags, row);
+        // Look for SNAPSHOT among dot-separated identifiers
+        final int offset = idOffsets[row];
+        final int end = offset + length;
+        int idStart = offset;
+        for (int i = offset; i <= end; ++i) {
+            if ((i == end) || ('.' == pool[i])) {
+                if (isSnapshotId(idStart, i)) {
+                    setFlag(snapshotFlags, row);
+                    return;
+                }
+                idStart = i + 1;
+            }
+        }
+    }
+
+    private boolean isSnapshotId(int start, int end) {
+        if (end - start != SNAPSHOT_CHARS.length) {
+            return false;
+        }
+        for (int i = 0; i < SNAPSHOT_CHARS.length; ++i) {
+            if (pool[start + i] != SNAPSHOT_CHARS[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int countFlags(long[] flags) {
+        final int fullWords = size >>> 6;
+        int count = 0;
+        for (int i = 0; i < fullWords; ++i) {
+            count += Long.bitCount(flags[i]);
+        }
+        final int remainder = size & 63;
+        if (0 != remainder) {
+            count += Long.bitCount(flags[fullWords] & ((1L << remainder) - 1L));
+        }
+        return count;
+    }
+
+    private void checkRow(int row) {
+        if ((row < 0) || (row >= size)) {
+            throw new IndexOutOfBoundsException("Invalid row " + row + " of table with size " + size);
+        }
+    }
+
+    private static int flagWords(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    private static boolean isSet(long[] flags, int row) {
+        return 0L != (flags[row >>> 6] & (1L << row));
+    }
+
+    private static void setFlag(long[] flags, int row) {
+        flags[row >>> 6] |= 1L << row;
+    }
+
+    private static boolean isDigit(char c) {
+        return (c >= '0') && (c <= '9');
+    }
+
+}
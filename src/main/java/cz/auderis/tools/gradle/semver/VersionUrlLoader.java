@@ -0,0 +1,367 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Loads versions from URLs with connection timeouts and an optional on-disk cache. When the cache
+ * directory is defined, the last successfully loaded version of every URL is stored there and:
+ * <ul>
+ * <li>it is used without any network access while it is younger than {@link #getMaxAge() max age}
+ *     or when the loader is {@link #isOffline() offline}</li>
+ * <li>otherwise it is revalidated by a conditional request ({@code If-None-Match} and
+ *     {@code If-Modified-Since}) for HTTP URLs, so an unchanged version costs a single
+ *     round-trip without transfer of contents</li>
+ * <li>when the URL cannot be accessed, the cached version is used as a fall-back
+ *     (unless {@link #setOfflineFallback(boolean) disabled})</li>
+ * </ul>
+ * The loader used by the {@code semanticVersion} extension keeps its cache under the Gradle user home
+ * and can be configured in build script:
+ * <pre>
+ *   semanticVersion.urlLoader {
+ *       maxAge = 600
+ *       readTimeout = 5000
+ *   }
+ * </pre>
+ */
+public final class VersionUrlLoader {
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    // Used by SemanticVersion.from(URL), without any caching
+    static final VersionUrlLoader UNCACHED = new VersionUrlLoader(null);
+
+    private static final Logger LOG = Logging.getLogger(VersionUrlLoader.class);
+    private static final String KEY_URL = "url";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+    private static final String KEY_FETCHED = "fetched";
+
+    private final File cacheDirectory;
+    private volatile int connectTimeout;
+    private volatile int readTimeout;
+    private volatile long maxAge;
+    private volatile boolean offline;
+    private volatile boolean offlineFallback;
+
+    /**
+     * Creates loader that uses the given cache directory
+     *
+     * @param cacheDirectory directory for cached versions or {@code null} when cache should not be used
+     */
+    public VersionUrlLoader(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+        this.connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        this.readTimeout = DEFAULT_READ_TIMEOUT;
+        this.offlineFallback = true;
+    }
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets timeout for establishing connection
+     *
+     * @param connectTimeout timeout in milliseconds, 0 means no timeout
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        if (connectTimeout < 0) {
+            throw new IllegalArgumentException("Invalid connect timeout: " + connectTimeout);
+        }
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets timeout for reading data from established connection
+     *
+     * @param readTimeout timeout in milliseconds, 0 means no timeout
+     */
+    public void setReadTimeout(int readTimeout) {
+        if (readTimeout < 0) {
+            throw new IllegalArgumentException("Invalid read timeout: " + readTimeout);
+        }
+        this.readTimeout = readTimeout;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Sets the period during which cached version is used without revalidation
+     *
+     * @param maxAge period in seconds, 0 means that cached versions are always revalidated
+     */
+    public void setMaxAge(long maxAge) {
+        if (maxAge < 0L) {
+            throw new IllegalArgumentException("Invalid max age: " + maxAge);
+        }
+        this.maxAge = maxAge;
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Sets offline mode; in offline mode, cached versions are used regardless of their age
+     *
+     * @param offline {@code true} to avoid network access when possible
+     */
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    public boolean isOfflineFallback() {
+        return offlineFallback;
+    }
+
+    /**
+     * Defines whether cached version is used when the URL cannot be accessed
+     *
+     * @param offlineFallback {@code true} to use cached version as a fall-back
+     */
+    public void setOfflineFallback(boolean offlineFallback) {
+        this.offlineFallback = offlineFallback;
+    }
+
+    /**
+     * Loads version from the URL; the contents is expected to adhere to rules defined
+     * in {@link SemanticVersion#from(InputStream)}
+     *
+     * @param url source of version specification
+     * @return loaded version
+     * @throws NullPointerException when {@code url} is {@code null}
+     * @throws InvalidUserDataException when {@code url} is not accessible and there is no cached version,
+     * or when its contents does not adhere to the rules
+     */
+    public SemanticVersion load(URL url) {
+        if (null == url) {
+            throw new NullPointerException("Version specification URL not specified");
+        }
+        final Path cacheFile = getCacheFile(url);
+        final Properties cached = (null != cacheFile) ? readCache(cacheFile) : null;
+        final SemanticVersion cachedVersion = (null != cached) ? cachedVersion(cached) : null;
+        final long now = System.currentTimeMillis();
+        if ((null != cachedVersion) && (offline || isFresh(cached, now))) {
+            return cachedVersion;
+        }
+        try {
+            final URLConnection connection = url.openConnection();
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            connection.setUseCaches(false);
+            final Properties fetched = new Properties();
+            fetched.setProperty(KEY_URL, url.toExternalForm());
+            final SemanticVersion result;
+            if (connection instanceof HttpURLConnection) {
+                result = fetchHttp((HttpURLConnection) connection, cached, cachedVersion, fetched);
+            } else {
+                result = read(connection);
+            }
+            if (null != cacheFile) {
+                fetched.setProperty(KEY_VERSION, result.toString());
+                fetched.setProperty(KEY_FETCHED, Long.toString(now));
+                writeCache(cacheFile, fetched);
+            }
+            return result;
+        } catch (GradleException e) {
+            throw e;
+        } catch (Exception e) {
+            if ((null != cachedVersion) && offlineFallback) {
+                LOG.warn("Cannot access version specification URL {}, using cached version {}: {}", url, cachedVersion, e.toString());
+                return cachedVersion;
+            }
+            throw new InvalidUserDataException("Cannot parse version specification URL " + url, e);
+        }
+    }
+
+    /**
+     * Returns current settings of the loader, so that versions loaded with different settings
+     * can be told apart
+     *
+     * @return list of setting values
+     */
+    List<Object> getSettings() {
+        return Arrays.<Object>asList(cacheDirectory, connectTimeout, readTimeout, maxAge, offline, offlineFallback);
+    }
+
+    private SemanticVersion fetchHttp(HttpURLConnection connection, Properties cached, SemanticVersion cachedVersion,
+                                      Properties fetched) throws IOException {
+        if (null != cachedVersion) {
+            final String etag = cached.getProperty(KEY_ETAG);
+            if (null != etag) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            final long lastModified = parseLong(cached.getProperty(KEY_LAST_MODIFIED));
+            if (lastModified > 0L) {
+                connection.setIfModifiedSince(lastModified);
+            }
+        }
+        try {
+            final int status = connection.getResponseCode();
+            if ((HttpURLConnection.HTTP_NOT_MODIFIED == status) && (null != cachedVersion)) {
+                copyProperty(cached, fetched, KEY_ETAG);
+                copyProperty(cached, fetched, KEY_LAST_MODIFIED);
+                return cachedVersion;
+            } else if (HttpURLConnection.HTTP_OK != status) {
+                throw new IOException("Unexpected HTTP status " + status + " " + connection.getResponseMessage());
+            }
+            final String etag = connection.getHeaderField("ETag");
+            if (null != etag) {
+                fetched.setProperty(KEY_ETAG, etag);
+            }
+            final long lastModified = connection.getLastModified();
+            if (lastModified > 0L) {
+                fetched.setProperty(KEY_LAST_MODIFIED, Long.toString(lastModified));
+            }
+            return read(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static SemanticVersion read(URLConnection connection) throws IOException {
+        try (final InputStream stream = connection.getInputStream();
+             final Reader streamReader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+             final BufferedReader reader = new BufferedReader(streamReader, 512)) {
+            return SemanticVersion.readVersion(reader);
+        }
+    }
+
+    private boolean isFresh(Properties cached, long now) {
+        final long fetched = parseLong(cached.getProperty(KEY_FETCHED));
+        return (maxAge > 0L) && (fetched > 0L) && (now - fetched < 1000L * maxAge) && (now >= fetched);
+    }
+
+    private Path getCacheFile(URL url) {
+        if (null == cacheDirectory) {
+            return null;
+        }
+        return cacheDirectory.toPath().resolve(hash(url.toExternalForm()) + ".properties");
+    }
+
+    private static SemanticVersion cachedVersion(Properties cached) {
+        final String spec = cached.getProperty(KEY_VERSION);
+        return (null != spec) ? SemanticVersionParser.parse(spec, 0, spec.length()) : null;
+    }
+
+    private static Properties readCache(Path cacheFile) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (final InputStream stream = Files.newInputStream(cacheFile)) {
+            properties.load(stream);
+            return properties;
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.debug("Cannot read cached version {}", cacheFile, e);
+            return null;
+        }
+    }
+
+    private static void writeCache(Path cacheFile, Properties properties) {
+        try {
+            final Path directory = cacheFile.getParent();
+            Files.createDirectories(directory);
+            final Path tempFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+            try {
+                try (final OutputStream stream = Files.newOutputStream(tempFile)) {
+                    properties.store(stream, null);
+                }
+                try {
+                    Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            LOG.debug("Cannot store cached version {}", cacheFile, e);
+        }
+    }
+
+    private static void copyProperty(Properties source, Properties target, String key) {
+        final String value = source.getProperty(key);
+        if (null != value) {
+            target.setProperty(key, value);
+        }
+    }
+
+    private static long parseLong(String text) {
+        if (null == text) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static String hash(String text) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            final byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder str = new StringBuilder(2 * hash.length);
+            for (final byte b : hash) {
+                str.append(Character.forDigit((b >>> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+            }
+            return str.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported", e);
+        }
+    }
+
+}
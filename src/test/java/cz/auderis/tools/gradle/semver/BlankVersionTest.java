@@ -18,6 +18,7 @@ import java.io.File;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
+import static cz.auderis.tools.gradle.semver.SerializationTestSupport.serializedCopy;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -123,6 +124,117 @@ public class BlankVersionTest {
         assertThat(version, is((Object) referenceVersion));
     }
 
+    @Test
+    public void shouldResolveLazyVersionWhenRendered() throws Exception {
+        // Given
+        project.getExtensions().getByType(SemanticVersionExtension.class).setLazyVersion(true);
+        final File versionFile = new File(projectDir, "version.txt");
+
+        // When
+        ((BlankVersion) project.getVersion()).from(versionFile);
+        final Object version = project.getVersion();
+        final boolean resolvedBeforeRendering = ((LazyVersion) version).isResolved();
+        folder.newFile("project/version.txt", withContents("2.7.1-SNAPSHOT"));
+
+        // Then
+        assertThat(version, is(instanceOf(LazyVersion.class)));
+        assertThat(resolvedBeforeRendering, is(false));
+        assertThat(version.toString(), is("2.7.1-SNAPSHOT"));
+        assertThat(((LazyVersion) version).get(), is(SemanticVersion.parse("2.7.1-SNAPSHOT")));
+    }
+
+    @Test
+    public void shouldDeriveLazyVersionProperties() throws Exception {
+        // Given
+        project.getExtensions().getByType(SemanticVersionExtension.class).setLazyVersion(true);
+        ((BlankVersion) project.getVersion()).is("4.2.0-SNAPSHOT");
+        final LazyVersion version = (LazyVersion) project.getVersion();
+
+        // When
+        final VersionProvider<Boolean> snapshot = version.getSnapshotProvider();
+        final VersionProvider<Boolean> stable = version.getStableProvider();
+        final VersionProvider<Integer> major = version.getMajorVersionProvider();
+        final VersionProvider<Integer> patch = version.getPatchRevisionProvider();
+        final boolean resolvedBeforeUse = version.isResolved();
+
+        // Then
+        assertThat(resolvedBeforeUse, is(false));
+        assertThat(snapshot.call(), is(true));
+        assertThat(stable.call(), is(false));
+        assertThat(major.call(), is(4));
+        assertThat(patch.call(), is(0));
+        assertThat(version.isResolved(), is(true));
+    }
+
+    @Test
+    public void shouldExposeLazyVersionPropertiesWithSemanticVersionTypes() throws Exception {
+        // Given
+        project.getExtensions().getByType(SemanticVersionExtension.class).setLazyVersion(true);
+        ((BlankVersion) project.getVersion()).is("3.9.12");
+        final LazyVersion version = (LazyVersion) project.getVersion();
+
+        // When
+        final boolean snapshot = version.isSnapshot();
+
+        // Then
+        assertThat(snapshot, is(false));
+        assertThat(version.isStable(), is(true));
+        assertThat(version.getMajorVersion() + 1, is(4));
+        assertThat(version.getMinorVersion(), is(9));
+        assertThat(version.getPatchRevision(), is(12));
+    }
+
+    @Test
+    public void shouldDelegateSemanticVersionApiOfLazyVersion() throws Exception {
+        // Given
+        project.getExtensions().getByType(SemanticVersionExtension.class).setLazyVersion(true);
+        ((BlankVersion) project.getVersion()).is("1.4.2-rc.1+build.7");
+        final LazyVersion version = (LazyVersion) project.getVersion();
+        final SemanticVersion expected = SemanticVersion.is("1.4.2-rc.1+build.7");
+
+        // When
+        final SemanticVersion incremented = version.incrementMinorVersion();
+
+        // Then
+        assertThat(incremented, is(SemanticVersion.is("1.5.0")));
+        assertThat(version.isPreRelease(), is(true));
+        assertThat(version.getPreReleaseIdentifiers(), is(expected.getPreReleaseIdentifiers()));
+        assertThat(version.withBuildMetadataIdentifier("x"), is(expected.withBuildMetadataIdentifier("x")));
+        assertThat(version.compareTo(SemanticVersion.is("1.4.2")) < 0, is(true));
+        assertThat(version.equals(expected), is(true));
+        assertThat(expected.equals(version), is(true));
+        assertThat(version.hashCode(), is(expected.hashCode()));
+    }
+
+    @Test
+    public void shouldSerializeLazyVersionWithoutProjectReference() throws Exception {
+        // Given
+        project.getExtensions().getByType(SemanticVersionExtension.class).setLazyVersion(true);
+        final File versionFile = folder.newFile("project/version.txt", withContents("1.5.0-rc.2"));
+        ((BlankVersion) project.getVersion()).from(versionFile);
+        final LazyVersion version = (LazyVersion) project.getVersion();
+
+        // When
+        final Object restored = serializedCopy(version);
+
+        // Then
+        assertThat(restored, is(instanceOf(LazyVersion.class)));
+        assertThat(((LazyVersion) restored).isResolved(), is(true));
+        assertThat(((LazyVersion) restored).get(), is(SemanticVersion.parse("1.5.0-rc.2")));
+    }
+
+    @Test
+    public void shouldSerializeBlankVersionAsText() throws Exception {
+        // Given
+        final Object version = project.getVersion();
+
+        // When
+        final Object restored = serializedCopy(version);
+
+        // Then
+        assertThat(restored, is((Object) Project.DEFAULT_VERSION));
+    }
+
 
     private static InputStream withContents(String text) {
         final byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
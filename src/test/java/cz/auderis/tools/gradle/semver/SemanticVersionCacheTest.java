@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static cz.auderis.tools.gradle.semver.SerializationTestSupport.deserialize;
+import static cz.auderis.tools.gradle.semver.SerializationTestSupport.serialize;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class SemanticVersionCacheTest {
+
+    @Test
+    @Parameters({
+            "1.0.0",
+            "2.3.4-SNAPSHOT",
+            "5.6.7-rc.1+build.42"
+    })
+    public void shouldReturnSharedInstance(String versionSpec) throws Exception {
+        // Given
+        final SemanticVersion first = SemanticVersion.canonical(versionSpec);
+
+        // When
+        final SemanticVersion second = SemanticVersion.canonical(versionSpec);
+        final SemanticVersion padded = SemanticVersion.canonical(' ' + versionSpec + '\t');
+
+        // Then
+        assertThat(second, is(sameInstance(first)));
+        assertThat(padded, is(sameInstance(first)));
+        assertThat(SemanticVersion.is(versionSpec), is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() throws Exception {
+        // Given
+        final SemanticVersionCache cache = new SemanticVersionCache(16);
+
+        // When
+        cache.put("1.2.3", SemanticVersion.is("1.2.3"));
+        cache.get("1.2.3");
+        cache.get("1.2.3");
+        cache.get("3.2.1");
+
+        // Then
+        assertThat(cache.getHitCount(), is(2L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    @Parameters({
+            "1   | 1",
+            "16  | 16",
+            "100 | 128"
+    })
+    public void shouldRoundCapacityToPowerOfTwo(int requestedCapacity, int expectedCapacity) throws Exception {
+        // Given / When
+        final SemanticVersionCache cache = new SemanticVersionCache(requestedCapacity);
+
+        // Then
+        assertThat(cache.getCapacity(), is(expectedCapacity));
+    }
+
+    @Test
+    @Parameters({
+            "3.1.4",
+            "1.0.0-SNAPSHOT+Build-4843"
+    })
+    public void shouldCanonicalizeDeserializedVersion(String versionSpec) throws Exception {
+        // Given
+        final SemanticVersion canonicalVersion = SemanticVersion.canonical(versionSpec);
+        final byte[] data = serialize(SemanticVersion.is(versionSpec));
+
+        // When
+        final Object deserialized = deserialize(data);
+
+        // Then
+        assertThat(deserialized, is(sameInstance((Object) canonicalVersion)));
+    }
+
+}
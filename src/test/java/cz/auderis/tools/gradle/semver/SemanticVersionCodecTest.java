@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static cz.auderis.tools.gradle.semver.SerializationTestSupport.deserialize;
+import static cz.auderis.tools.gradle.semver.SerializationTestSupport.serialize;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class SemanticVersionCodecTest {
+
+    @Rule
+    public ExpectedException errors = ExpectedException.none();
+
+    @Test
+    @Parameters({
+            "0.0.0",
+            "1.2.3-SNAPSHOT",
+            "2147483647.128.16384",
+            "5.6.7-rc.1+build.42",
+            "3.1.415-PI.0.x-y+By-Ludolf.42"
+    })
+    public void shouldDecodeEncodedVersion(String versionSpec) throws Exception {
+        // Given
+        final SemanticVersion version = SemanticVersion.is(versionSpec);
+
+        // When
+        final byte[] data = version.toBytes();
+        final SemanticVersion decoded = SemanticVersion.fromBytes(ByteBuffer.wrap(data));
+
+        // Then
+        assertThat(decoded, is(version));
+        assertThat(decoded.toString(), is(versionSpec));
+        assertThat(decoded.compareTo(version), is(0));
+    }
+
+    @Test
+    public void shouldEncodeReleaseVersionCompactly() throws Exception {
+        // Given
+        final SemanticVersion version = SemanticVersion.is("1.20.300");
+
+        // When
+        final byte[] data = version.toBytes();
+
+        // Then
+        assertThat(data, is(new byte[] { 1, 20, (byte) 0xAC, 0x02, 0, 0 }));
+    }
+
+    @Test
+    public void shouldDecodeConsecutiveVersions() throws Exception {
+        // Given
+        final SemanticVersion first = SemanticVersion.is("1.0.0-alpha+b1");
+        final SemanticVersion second = SemanticVersion.is("1.0.0");
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        buffer.put(first.toBytes()).put(second.toBytes()).flip();
+
+        // When
+        final SemanticVersion decodedFirst = SemanticVersion.fromBytes(buffer);
+        final SemanticVersion decodedSecond = SemanticVersion.fromBytes(buffer);
+
+        // Then
+        assertThat(decodedFirst, is(first));
+        assertThat(decodedSecond, is(second));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test
+    @Parameters({
+            "1.0.0-SNAPSHOT",
+            "5.6.7-rc.1+build.42"
+    })
+    public void shouldDeclineTruncatedData(String versionSpec) throws Exception {
+        // Given
+        final byte[] data = SemanticVersion.is(versionSpec).toBytes();
+        final byte[] truncated = Arrays.copyOf(data, data.length - 1);
+
+        // Then
+        errors.expect(IllegalArgumentException.class);
+
+        // When
+        SemanticVersion.fromBytes(ByteBuffer.wrap(truncated));
+    }
+
+    @Test
+    public void shouldRefuseToEncodeOverflowedVersion() throws Exception {
+        // Given
+        final SemanticVersion version = SemanticVersion.is("2147483647.0.0").incrementMajorVersion();
+
+        // Then
+        errors.expect(IllegalStateException.class);
+
+        // When
+        version.toBytes();
+    }
+
+    @Test
+    public void shouldSerializeOverflowedVersionInDefaultForm() throws Exception {
+        // Given
+        final SemanticVersion version = SemanticVersion.is("2147483647.0.0-rc.1").incrementMajorVersion();
+
+        // When
+        final Object deserialized = deserialize(serialize(version));
+
+        // Then
+        assertThat(deserialized, is((Object) version));
+    }
+
+    @Test
+    public void shouldDeclineInvalidIdentifier() throws Exception {
+        // Given
+        final byte[] data = { 1, 0, 0, 1, 2, 'a', '_' };
+
+        // Then
+        errors.expect(IllegalArgumentException.class);
+
+        // When
+        SemanticVersion.fromBytes(ByteBuffer.wrap(data));
+    }
+
+    @Test
+    @Parameters({
+            "4.5.6",
+            "1.0.0-beta.11+exp.sha.5114f85"
+    })
+    public void shouldSerializeThroughCompactForm(String versionSpec) throws Exception {
+        // Given
+        final SemanticVersion version = SemanticVersion.is(versionSpec);
+
+        // When
+        final byte[] data = serialize(version);
+        final Object deserialized = deserialize(data);
+
+        // Then
+        assertThat(deserialized, is((Object) version));
+        assertThat(data.length < 128, is(true));
+    }
+
+}
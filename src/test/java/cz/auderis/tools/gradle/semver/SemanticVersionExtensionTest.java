@@ -17,9 +17,14 @@ import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
@@ -94,4 +99,116 @@ public class SemanticVersionExtensionTest {
         assertThat(parsedVersion, is(referenceVersion));
     }
 
+    @Test
+    public void shouldMemoizeVersionOverride() throws Exception {
+        // Given
+        final CountingOverride override = new CountingOverride("counting", "5.0.0-beta.2");
+        extension.overrideSources.clear();
+        extension.overrideSources.add(override);
+
+        // When
+        final SemanticVersion first = extension.getVersionOverride();
+        final SemanticVersion second = extension.getVersionOverride();
+
+        // Then
+        assertThat(first, is(SemanticVersion.is("5.0.0-beta.2")));
+        assertThat(second, is(sameInstance(first)));
+        assertThat(override.count.get(), is(1));
+    }
+
+    @Test
+    public void shouldMemoizeMissingVersionOverride() throws Exception {
+        // Given
+        final CountingOverride override = new CountingOverride("inactive", null);
+        extension.overrideSources.clear();
+        extension.overrideSources.add(override);
+
+        // When
+        final SemanticVersion first = extension.getVersionOverride();
+        final SemanticVersion second = extension.getVersionOverride();
+
+        // Then
+        assertThat(first, is(nullValue()));
+        assertThat(second, is(nullValue()));
+        assertThat(override.count.get(), is(1));
+    }
+
+    @Test
+    public void shouldReevaluateOverrideWhenSourceAddedAfterResolution() throws Exception {
+        // Given
+        final CountingOverride override = new CountingOverride("inactive", null);
+        extension.overrideSources.clear();
+        extension.overrideSources.add(override);
+        extension.getVersionOverride();
+
+        // When
+        extension.allowOverrideFromEnvironment("SEMANTIC_VERSION_OVERRIDE_" + System.nanoTime());
+        final SemanticVersion version = extension.getVersionOverride();
+
+        // Then
+        assertThat(version, is(nullValue()));
+        assertThat(override.count.get(), is(2));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFreezeOverrideSourcesAfterEvaluation() throws Exception {
+        // Given
+        extension.overrideSources.freeze();
+
+        // When
+        extension.allowOverrideFromEnvironment("SEMANTIC_VERSION_OVERRIDE");
+    }
+
+    @Test
+    public void shouldResolveWatchedFileAsProjectFile() throws Exception {
+        // Given
+        final File versionFile = new File(projectDir, "version.txt");
+        Files.write(versionFile.toPath(), "6.0.2".getBytes(StandardCharsets.UTF_8));
+        final Callable<String> versionPath = new Callable<String>() {
+            @Override
+            public String call() {
+                return "version.txt";
+            }
+        };
+
+        // When
+        final VersionFileWatcher watcher = extension.watch(versionPath);
+
+        // Then
+        try {
+            assertThat(watcher.getFile(), is(versionFile.toPath().toRealPath()));
+            assertThat(extension.watch(versionFile.toURI()), is(sameInstance(watcher)));
+            assertThat(watcher.getVersion(), is(SemanticVersion.is("6.0.2")));
+        } finally {
+            watcher.close();
+        }
+    }
+
+    static final class CountingOverride implements VersionOverrideSource {
+        final AtomicInteger count = new AtomicInteger();
+        final String name;
+        final String specification;
+
+        CountingOverride(String name, String specification) {
+            this.name = name;
+            this.specification = specification;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isActive() {
+            return null != specification;
+        }
+
+        @Override
+        public String getVersionSpecification() {
+            count.incrementAndGet();
+            return specification;
+        }
+    }
+
 }
@@ -21,12 +21,14 @@ import cz.auderis.test.category.UnitTest;
 import cz.auderis.test.rule.WorkFolder;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
+import org.gradle.api.InvalidUserDataException;
 import org.junit.BeforeClass;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,9 +36,14 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
 import java.net.URLStreamHandlerFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 @RunWith(JUnitParamsRunner.class)
@@ -108,6 +115,78 @@ public class SemanticVersionLoaderTest {
     }
 
 
+    @Test
+    @Category(IntegrationTest.class)
+    public void shouldReuseVersionFromUnchangedFile() throws Exception {
+        // Given
+        final Path versionFile = folder.newFile("cached/version.txt", withContents("# Shared version\n3.1.4-rc.1\n")).toPath();
+        Files.setLastModifiedTime(versionFile, FileTime.fromMillis(System.currentTimeMillis() - 60000L));
+        final Path sameFile = versionFile.getParent().resolve("../cached/./version.txt");
+
+        // When
+        final SemanticVersion first = SemanticVersion.from(versionFile);
+        final SemanticVersion second = SemanticVersion.from(sameFile);
+        final SemanticVersion third = SemanticVersion.from(versionFile.toFile());
+
+        // Then
+        assertThat(first, is(SemanticVersion.is("3.1.4-rc.1")));
+        assertThat(second, is(sameInstance(first)));
+        assertThat(third, is(sameInstance(first)));
+    }
+
+    @Test
+    @Category(IntegrationTest.class)
+    public void shouldReloadChangedFile() throws Exception {
+        // Given
+        final Path versionFile = folder.newFile("changed/version.txt", withContents("1.0.0")).toPath();
+        final FileTime originalTime = FileTime.fromMillis(System.currentTimeMillis() - 60000L);
+        Files.setLastModifiedTime(versionFile, originalTime);
+        final SemanticVersion original = SemanticVersion.from(versionFile);
+
+        // When
+        Files.write(versionFile, "1.0.10".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(versionFile, originalTime);
+        final SemanticVersion resized = SemanticVersion.from(versionFile);
+        Files.write(versionFile, "2.0.10".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(versionFile, FileTime.fromMillis(originalTime.toMillis() + 5000L));
+        final SemanticVersion touched = SemanticVersion.from(versionFile);
+
+        // Then
+        assertThat(original.toString(), is("1.0.0"));
+        assertThat(resized.toString(), is("1.0.10"));
+        assertThat(touched.toString(), is("2.0.10"));
+    }
+
+    @Test
+    @Category(IntegrationTest.class)
+    public void shouldNotCacheRecentlyModifiedFile() throws Exception {
+        // Given
+        final Path versionFile = folder.newFile("recent/version.txt", withContents("1.2.3")).toPath();
+        final FileTime modificationTime = FileTime.fromMillis(System.currentTimeMillis());
+        Files.setLastModifiedTime(versionFile, modificationTime);
+        final SemanticVersion original = SemanticVersion.from(versionFile);
+
+        // When
+        Files.write(versionFile, "4.5.6".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(versionFile, modificationTime);
+        final SemanticVersion changed = SemanticVersion.from(versionFile);
+
+        // Then
+        assertThat(original.toString(), is("1.2.3"));
+        assertThat(changed.toString(), is("4.5.6"));
+    }
+
+    @Test(expected = InvalidUserDataException.class)
+    @Category(IntegrationTest.class)
+    public void shouldDeclineMissingFile() throws Exception {
+        SemanticVersion.from(folder.getRoot().toPath().resolve("missing.txt"));
+    }
+
+    private static InputStream withContents(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+
     static class TestUrlConnection extends URLConnection {
         final String resourcePath;
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class SemanticVersionSortTest {
+
+    @Test
+    @Parameters({
+            "0",
+            "1",
+            "47",
+            "1000",
+            "20000"
+    })
+    public void shouldSortArrayLikeComparator(int size) throws Exception {
+        // Given
+        final SemanticVersion[] versions = randomVersions(size, new Random(size));
+        final SemanticVersion[] expected = versions.clone();
+        Arrays.sort(expected, SemanticVersion.OrderBy.NORMAL);
+
+        // When
+        SemanticVersion.sort(versions);
+
+        // Then
+        assertThat(Arrays.asList(versions), is(Arrays.asList(expected)));
+    }
+
+    @Test
+    @Parameters({
+            "1000",
+            "100000"
+    })
+    public void shouldSortArrayInParallelLikeComparator(int size) throws Exception {
+        // Given
+        final SemanticVersion[] versions = randomVersions(size, new Random(size));
+        final SemanticVersion[] expected = versions.clone();
+        Arrays.sort(expected, SemanticVersion.OrderBy.NORMAL);
+
+        // When
+        SemanticVersion.parallelSort(versions);
+
+        // Then
+        assertThat(Arrays.asList(versions), is(Arrays.asList(expected)));
+    }
+
+    @Test
+    public void shouldSortList() throws Exception {
+        // Given
+        final List<SemanticVersion> versions = new LinkedList<>(Arrays.asList(randomVersions(500, new Random(42L))));
+        final List<SemanticVersion> expected = new ArrayList<>(versions);
+        Collections.sort(expected, SemanticVersion.OrderBy.NORMAL);
+
+        // When
+        SemanticVersion.sort(versions);
+
+        // Then
+        assertThat(versions, is(expected));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldDeclineNullElement() throws Exception {
+        final SemanticVersion[] versions = randomVersions(100, new Random(1L));
+        versions[50] = null;
+        SemanticVersion.sort(versions);
+    }
+
+    private static SemanticVersion[] randomVersions(int count, Random random) {
+        final String[] preReleaseIds = { "alpha", "beta", "rc", "SNAPSHOT", "1", "2", "10" };
+        final SemanticVersion[] result = new SemanticVersion[count];
+        for (int i = 0; i < count; ++i) {
+            // Wide range of major numbers exercises all radix digits
+            final int major = (0 == random.nextInt(10)) ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(3);
+            SemanticVersion version = SemanticVersion.builder(major, random.nextInt(4), random.nextInt(300)).build();
+            final int ids = random.nextInt(3);
+            for (int j = 0; j < ids; ++j) {
+                version = version.withOptionalPreReleaseIdentifier(preReleaseIds[random.nextInt(preReleaseIds.length)]);
+            }
+            if (random.nextBoolean()) {
+                // Versions with equal precedence differ in build metadata, so that stability is verified
+                version = version.withBuildMetadataIdentifier("b" + i);
+            }
+            result[i] = version;
+        }
+        return result;
+    }
+
+}
@@ -29,7 +29,16 @@ import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
 
@@ -73,13 +82,56 @@ public class SemanticVersionTest {
             "2.2.2-x.02",
             "3.3.3+.y",
             "3.3.3+y.",
-            "4.4.4+y.03"
+            "4.4.4+y.03",
+            "5.5.5-0a",
+            "6.6.6-x+",
+            "2147483648.0.0",
+            "1.2.3 4"
     })
     public void shouldDeclineInvalidSpecification(String spec)  throws Exception {
         errors.expect(InvalidUserDataException.class);
         final SemanticVersion ver = SemanticVersion.is(spec);
     }
 
+    @Test
+    @Category(UnitTest.class)
+    @Parameters({
+        "1.0.0-alpha.12.x      | 3 | 0",
+        "1.0.0-1.2             | 2 | 0",
+        "1.0.0+b.1a.x-y        | 0 | 3",
+        "1.0.0-rc.1+build.5    | 2 | 2",
+        "2147483647.1.0-0      | 1 | 0"
+    })
+    public void shouldSplitIdentifiers(String spec, int preReleaseIds, int buildMetadataIds) throws Exception {
+        final SemanticVersion ver = SemanticVersion.is(spec);
+        //
+        assertThat(ver.getPreReleaseIdentifiers().size(), is(preReleaseIds));
+        assertThat(ver.getBuildMetadataIdentifiers().size(), is(buildMetadataIds));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    @Parameters({
+        "1.2.3               | true",
+        "1.2.3-x.y+z         | true",
+        "1.2.3-x-            | true",
+        "1.2.3--x            | false",
+        "01.2.3              | false",
+        "1.2.3-              | false",
+        "99999999999.0.0     | false"
+    })
+    public void shouldValidateSpecification(String spec, boolean expectedValidity) throws Exception {
+        assertThat(SemanticVersion.isValid(spec), is(expectedValidity));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldIgnoreSurroundingWhitespace() throws Exception {
+        final SemanticVersion ver = SemanticVersion.is(" \t1.2.3-x.y+z\r\n");
+        //
+        assertThat(ver.toString(), is("1.2.3-x.y+z"));
+    }
+
     @Test
     @Category(UnitTest.class)
     @Parameters({
@@ -102,6 +154,17 @@ public class SemanticVersionTest {
         "1.2.3 | < | 2.2.3",
         "1.2.3 | = | 1.2.3+Build",
         "1.2.3 | > | 1.2.3-SNAPSHOT",
+        "1.2.3-alpha | < | 1.2.3-beta",
+        "1.2.3-alpha | < | 1.2.3-alpha.1",
+        "1.2.3-SNAPSHOT | < | 1.2.4-SNAPSHOT",
+        "1.2.3-SNAPSHOT | = | 1.2.3-SNAPSHOT+Build",
+        "2147483647.0.0 | > | 2147483646.2147483647.2147483647",
+        "0.2147483647.0 | < | 1.0.0-SNAPSHOT",
+        "1.0.0-2 | < | 1.0.0-10",
+        "1.0.0-10 | < | 1.0.0-a",
+        "1.0.0-rc.20261016123045 | > | 1.0.0-rc.20261016123044",
+        "1.0.0-99999999999999999999 | > | 1.0.0-9999999999999999999",
+        "1.0.0-99999999999999999999 | = | 1.0.0-99999999999999999999+x",
     })
     @Category(UnitTest.class)
     public void shouldCorrectlyCompareVersions(String spec1, char relation, String spec2) throws Exception {
@@ -123,4 +186,260 @@ public class SemanticVersionTest {
         assertThat(testedVersion, correctlyComparesToReference);
     }
 
+    @Test
+    @Category(UnitTest.class)
+    @Parameters({
+        "1.2.3",
+        "0.1.0-SNAPSHOT",
+        "3.1.415-PI+By-Ludolf"
+    })
+    public void shouldBuildSameVersionAsIdentifierChain(String spec) throws Exception {
+        // Given
+        final SemanticVersion baseVersion = SemanticVersion.is(spec);
+        final SemanticVersion chainedVersion = baseVersion
+                .withPreReleaseIdentifier("feature-x")
+                .withOptionalPreReleaseIdentifier(null)
+                .withPreReleaseIdentifiers("ci", "4711", "ci")
+                .withBuildMetadataIdentifier("a1b2c3d")
+                .withBuildMetadataIdentifier("a1b2c3d");
+
+        // When
+        final SemanticVersion builtVersion = baseVersion.toBuilder()
+                .withPreReleaseIdentifier("feature-x")
+                .withOptionalPreReleaseIdentifier(null)
+                .withPreReleaseIdentifiers("ci", "4711", "ci")
+                .withBuildMetadataIdentifier("a1b2c3d")
+                .withBuildMetadataIdentifier("a1b2c3d")
+                .build();
+
+        // Then
+        assertThat(builtVersion, is(chainedVersion));
+        assertThat(builtVersion.toString(), is(chainedVersion.toString()));
+        assertThat(builtVersion.compareTo(chainedVersion), is(0));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldNotChangeBuiltVersionByFurtherBuilderUse() throws Exception {
+        // Given
+        final SemanticVersion.Builder builder = SemanticVersion.builder(1, 4, 2).withPreReleaseIdentifier("rc");
+        final SemanticVersion firstVersion = builder.build();
+
+        // When
+        final SemanticVersion secondVersion = builder.stripPreReleaseIdentifiers().withPatchRevision(3).build();
+
+        // Then
+        assertThat(firstVersion.toString(), is("1.4.2-rc"));
+        assertThat(secondVersion.toString(), is("1.4.3"));
+        assertThat(firstVersion.isPreRelease(), is(true));
+        assertThat(secondVersion.isStable(), is(true));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    @Parameters({
+        "x.",
+        "-x",
+        "a_b"
+    })
+    public void shouldDeclineInvalidBuilderIdentifier(String id) throws Exception {
+        errors.expect(InvalidUserDataException.class);
+        SemanticVersion.builder(1, 0, 0).withPreReleaseIdentifier(id);
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldExposeReadOnlyIdentifiers() throws Exception {
+        // Given
+        final SemanticVersion ver = SemanticVersion.is("2.0.0-beta.3+exp.sha.5114f85");
+
+        // When
+        final List<String> preReleaseIds = ver.getPreReleaseIdentifiers();
+
+        // Then
+        assertThat(preReleaseIds, is(Arrays.asList("beta", "3")));
+        assertThat(ver.getBuildMetadataIdentifiers(), is(Arrays.asList("exp", "sha", "5114f85")));
+        errors.expect(UnsupportedOperationException.class);
+        preReleaseIds.add("4");
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldShareCommonIdentifiers() throws Exception {
+        // Given
+        final SemanticVersion parsed = SemanticVersion.is("1.0.0-SNAPSHOT");
+        final String derivedId = new StringBuilder("SNAP").append("SHOT").toString();
+
+        // When
+        final SemanticVersion derived = SemanticVersion.is("1.0.0").withPreReleaseIdentifier(derivedId);
+
+        // Then
+        assertThat(derived, is(parsed));
+        assertThat(derived.getPreReleaseIdentifiers().get(0), is(sameInstance(parsed.getPreReleaseIdentifiers().get(0))));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    @Parameters({
+        "version=1.2.3-rc.1;  | 8 | 18 | 1.2.3-rc.1",
+        "<v> 0.9.0+b7 </v>    | 3 | 13 | 0.9.0+b7"
+    })
+    public void shouldParseTextRange(String text, int start, int end, String expected) throws Exception {
+        // Given
+        final CharSequence chars = CharBuffer.wrap(text.toCharArray());
+
+        // When
+        final SemanticVersion ver = SemanticVersion.parse(chars, start, end);
+
+        // Then
+        assertThat(ver.toString(), is(expected));
+        assertThat(SemanticVersion.isValid(chars, start, end), is(true));
+        assertThat(SemanticVersion.isValid(chars, 0, end), is(false));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldParseBytesInPlace() throws Exception {
+        // Given
+        final byte[] data = "Version: 4.0.1-beta.2+linux\n".getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.position(9);
+
+        // When
+        final SemanticVersion ver = SemanticVersion.parse(buffer);
+
+        // Then
+        assertThat(ver.toString(), is("4.0.1-beta.2+linux"));
+        assertThat(ver.getBuildMetadataIdentifiers(), is(Arrays.asList("linux")));
+        assertThat(buffer.position(), is(9));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldDeclineNonAsciiBytes() throws Exception {
+        // Given
+        final ByteBuffer buffer = ByteBuffer.wrap("1.0.0-\u00e9t\u00e9".getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        errors.expect(InvalidUserDataException.class);
+
+        // When
+        SemanticVersion.parse(buffer);
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldDeclineInvalidTextRange() throws Exception {
+        errors.expect(IndexOutOfBoundsException.class);
+        SemanticVersion.parse("1.2.3", 2, 6);
+    }
+
+    @Test
+    @Parameters({
+        "1.2.3 | = | 1.2.3",
+        "1.2.3 | < | 1.2.4",
+        "1.2.3 | < | 1.10.3",
+        "10.2.3 | > | 9.20.30",
+        "1.2.3 | = | 1.2.3+Build",
+        "1.2.3 | > | 1.2.3-SNAPSHOT",
+        "1.2.3-alpha | < | 1.2.3-beta",
+        "1.2.3-alpha | < | 1.2.3-alpha.1",
+        "1.2.3-alpha.beta | < | 1.2.3-alpha.beta1",
+        "1.2.3-alpha.1 | < | 1.2.3-alpha.a",
+        "1.2.3-SNAPSHOT | = | 1.2.3-SNAPSHOT+Build",
+        "2147483647.0.0 | > | 2147483646.2147483647.2147483647",
+        "1.0.0-2 | < | 1.0.0-10",
+        "1.0.0-10 | < | 1.0.0-a",
+        "1.0.0-rc.9+1 | < | 1.0.0-rc.10",
+        "1.0.0-99999999999999999999 | > | 1.0.0-9999999999999999999",
+    })
+    @Category(UnitTest.class)
+    public void shouldCompareRawSpecifications(String spec1, char relation, String spec2) throws Exception {
+        // Given
+        final int expectedSign = ('=' == relation) ? 0 : (('>' == relation) ? 1 : -1);
+
+        // When
+        final int result = SemanticVersion.compare(spec1, spec2);
+        final int reverseResult = SemanticVersion.compare(" " + spec2 + "\t", spec1);
+
+        // Then
+        assertThat(Integer.signum(result), is(expectedSign));
+        assertThat(Integer.signum(reverseResult), is(-expectedSign));
+        assertThat(Integer.signum(result), is(Integer.signum(SemanticVersion.is(spec1).compareTo(SemanticVersion.is(spec2)))));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldSortRawSpecificationsWithInvalidOnesLast() throws Exception {
+        // Given
+        final List<String> specs = Arrays.asList("1.10.0", "bad", "1.2.0-rc.1", "1.2", "1.2.0");
+
+        // When
+        Collections.sort(specs, SemanticVersion.RawOrder.INVALID_LAST);
+
+        // Then
+        assertThat(specs, is(Arrays.asList("1.2.0-rc.1", "1.2.0", "1.10.0", "1.2", "bad")));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldSortRawSpecificationsWithInvalidOnesFirst() throws Exception {
+        // Given
+        final List<String> specs = Arrays.asList("1.10.0", "bad", "1.2.0-rc.1", "1.2", "1.2.0");
+
+        // When
+        Collections.sort(specs, SemanticVersion.RawOrder.INVALID_FIRST);
+
+        // Then
+        assertThat(specs, is(Arrays.asList("1.2", "bad", "1.2.0-rc.1", "1.2.0", "1.10.0")));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldDeclineInvalidRawSpecification() throws Exception {
+        errors.expect(InvalidUserDataException.class);
+        SemanticVersion.compare("1.0.0", "1.0");
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldParseAllAndCollectInvalidInputs() throws Exception {
+        // Given
+        final List<String> specs = Arrays.asList("1.0.0", "1.0", " 2.1.0-rc.1 ", null, "3.0.0+b1", "01.0.0");
+
+        // When
+        final VersionParseResult result = SemanticVersion.parseAll(specs);
+
+        // Then
+        assertThat(result.getInputCount(), is(6));
+        assertThat(result.hasErrors(), is(true));
+        assertThat(result.getVersions(), is(Arrays.asList(SemanticVersion.is("1.0.0"), SemanticVersion.is("2.1.0-rc.1"), SemanticVersion.is("3.0.0+b1"))));
+        assertThat(Arrays.toString(result.getInvalidPositions()), is("[1, 3, 5]"));
+        assertThat(result.getInvalidInputs(), is(Arrays.<CharSequence>asList("1.0", null, "01.0.0")));
+        assertThat(result.getVersion(2), is(SemanticVersion.is("2.1.0-rc.1")));
+    }
+
+    @Test
+    @Category(UnitTest.class)
+    public void shouldParseAllInParallel() throws Exception {
+        // Given
+        final List<String> specs = new ArrayList<>();
+        for (int i = 0; i < 50000; ++i) {
+            specs.add((0 == i % 1000) ? ("bad." + i) : ("1." + (i % 97) + "." + i));
+        }
+
+        // When
+        final VersionParseResult result = SemanticVersion.parallelParseAll(specs);
+
+        // Then
+        assertThat(result.getVersions().size(), is(49950));
+        final int[] invalidPositions = result.getInvalidPositions();
+        assertThat(invalidPositions.length, is(50));
+        for (int i = 0; i < invalidPositions.length; ++i) {
+            assertThat(invalidPositions[i], is(1000 * i));
+        }
+        assertThat(result.getVersion(49999).toString(), is("1.44.49999"));
+    }
+
 }
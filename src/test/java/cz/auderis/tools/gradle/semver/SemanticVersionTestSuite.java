@@ -22,9 +22,23 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
         SemanticVersionTest.class,
+        SemanticVersionCacheTest.class,
+        SemanticVersionCodecTest.class,
+        SemanticVersionSortTest.class,
+        VersionConstraintTest.class,
+        VersionRangeSetTest.class,
+        VersionRangeIndexTest.class,
+        VersionCatalogTest.class,
+        VersionTableTest.class,
+        VersionScannerTest.class,
         SemanticVersionLoaderTest.class,
+        VersionUrlLoaderTest.class,
+        VersionSourceResolverTest.class,
+        VersionFileWatcherTest.class,
+        VersionOverrideSourceTest.class,
         SemanticVersionExtensionTest.class,
         BlankVersionTest.class,
+        SharedVersionServiceTest.class,
 })
 public class SemanticVersionTestSuite {
 
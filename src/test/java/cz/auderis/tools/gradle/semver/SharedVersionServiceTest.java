@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import cz.auderis.test.rule.WorkFolder;
+import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@Category(UnitTest.class)
+public class SharedVersionServiceTest {
+
+    @Rule
+    public WorkFolder folder = WorkFolder.basic();
+
+    @Test
+    public void shouldResolveSourceOnce() throws Exception {
+        // Given
+        final SharedVersionService service = new SharedVersionService();
+        final CountingResolution resolution = new CountingResolution("1.2.3");
+        final SharedVersionService.Key key = new SharedVersionService.Key("test", "a");
+
+        // When
+        final SemanticVersion first = service.resolve(key, resolution);
+        final SemanticVersion second = service.resolve(new SharedVersionService.Key("test", "a"), resolution);
+
+        // Then
+        assertThat(first, is(SemanticVersion.is("1.2.3")));
+        assertThat(second, is(sameInstance(first)));
+        assertThat(resolution.count.get(), is(1));
+    }
+
+    @Test
+    public void shouldResolveConcurrentRequestsOnce() throws Exception {
+        // Given
+        final SharedVersionService service = new SharedVersionService();
+        final CountingResolution resolution = new CountingResolution("2.0.0-rc.1");
+        final SharedVersionService.Key key = new SharedVersionService.Key("test", "b");
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<SemanticVersion>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < 32; ++i) {
+                results.add(executor.submit(new Callable<SemanticVersion>() {
+                    @Override
+                    public SemanticVersion call() throws Exception {
+                        start.await();
+                        return service.resolve(key, resolution);
+                    }
+                }));
+            }
+            start.countDown();
+
+            // Then
+            final SemanticVersion expected = results.get(0).get();
+            for (final Future<SemanticVersion> result : results) {
+                assertThat(result.get(), is(sameInstance(expected)));
+            }
+            assertThat(resolution.count.get(), is(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotRememberFailedResolution() throws Exception {
+        // Given
+        final SharedVersionService service = new SharedVersionService();
+        final SharedVersionService.Key key = new SharedVersionService.Key("test", "c");
+
+        // When
+        try {
+            service.resolve(key, new CountingResolution("invalid version"));
+        } catch (InvalidUserDataException e) {
+            // Expected
+        }
+        final SemanticVersion version = service.resolve(key, new CountingResolution("1.0.0"));
+
+        // Then
+        assertThat(version, is(SemanticVersion.is("1.0.0")));
+    }
+
+    @Test
+    public void shouldShareVersionFileAcrossProjects() throws Exception {
+        // Given
+        final File rootDir = folder.newFolder("root");
+        final File versionFile = folder.newFile("root/version.txt", new ByteArrayInputStream("3.1.4".getBytes(StandardCharsets.UTF_8)));
+        final Project root = ProjectBuilder.builder().withName("root").withProjectDir(rootDir).build();
+        final Project child = ProjectBuilder.builder().withName("child").withParent(root).build();
+        final Project otherBuild = ProjectBuilder.builder().withName("other").build();
+        root.getPluginManager().apply("cz.auderis.SemanticVersion");
+        child.getPluginManager().apply("cz.auderis.SemanticVersion");
+
+        // When
+        ((BlankVersion) root.getVersion()).from(versionFile);
+        ((BlankVersion) child.getVersion()).from(versionFile);
+
+        // Then
+        assertThat(child.getVersion(), is(sameInstance(root.getVersion())));
+        assertThat(SharedVersionService.forBuild(child.getGradle()), is(sameInstance(SharedVersionService.forBuild(root.getGradle()))));
+        assertThat(SharedVersionService.forBuild(otherBuild.getGradle()), is(not(sameInstance(SharedVersionService.forBuild(root.getGradle())))));
+    }
+
+    @Test
+    public void shouldShareUrlVersionOnlyForSameLoaderSettings() throws Exception {
+        // Given
+        final SharedVersionService service = new SharedVersionService();
+        final File versionFile = folder.newFile("url-version.txt", new ByteArrayInputStream("2.7.1".getBytes(StandardCharsets.UTF_8)));
+        final URL url = versionFile.toURI().toURL();
+        final VersionUrlLoader firstLoader = new VersionUrlLoader(null);
+        final VersionUrlLoader sameLoader = new VersionUrlLoader(null);
+        final VersionUrlLoader otherLoader = new VersionUrlLoader(null);
+        otherLoader.setMaxAge(600L);
+
+        // When
+        final SemanticVersion first = service.fromUrl(url, firstLoader);
+        final SemanticVersion same = service.fromUrl(url, sameLoader);
+        final SemanticVersion other = service.fromUrl(url, otherLoader);
+
+        // Then
+        assertThat(same, is(sameInstance(first)));
+        assertThat(other, is(not(sameInstance(first))));
+        assertThat(other, is(first));
+    }
+
+    @Test
+    public void shouldWatchFileResolvedBeforeWithoutWatching() throws Exception {
+        // Given
+        final File versionFile = folder.newFile("later-watched.version", new ByteArrayInputStream("1.3.0".getBytes(StandardCharsets.UTF_8)));
+        final SharedVersionService service = new SharedVersionService();
+        final SemanticVersion unwatched = service.fromFile(versionFile.toPath(), false);
+
+        // When
+        final SemanticVersion watched = service.fromFile(versionFile.toPath(), true);
+
+        // Then
+        try {
+            assertThat(watched, is(unwatched));
+            assertThat(service.usedWatchers.size(), is(1));
+        } finally {
+            service.buildFinished();
+            new SharedVersionService().buildFinished();
+        }
+    }
+
+    @Test
+    public void shouldReleaseWatchersAndListenersWhenBuildFinishes() throws Exception {
+        // Given
+        final File versionFile = folder.newFile("watched.version", new ByteArrayInputStream("1.0.0".getBytes(StandardCharsets.UTF_8)));
+        final SharedVersionService firstBuild = new SharedVersionService();
+        final VersionFileWatcher watcher = firstBuild.watch(versionFile.toPath());
+        firstBuild.addListener(watcher, new VersionFileWatcherTest.RecordingListener(1));
+
+        // When
+        firstBuild.buildFinished();
+        final boolean closedAfterUse = watcher.isClosed();
+        final int listenersAfterUse = watcher.getListenerCount();
+        new SharedVersionService().buildFinished();
+
+        // Then
+        assertThat(closedAfterUse, is(false));
+        assertThat(listenersAfterUse, is(0));
+        assertThat(watcher.isClosed(), is(true));
+    }
+
+    static final class CountingResolution implements Callable<SemanticVersion> {
+        final AtomicInteger count = new AtomicInteger();
+        final String specification;
+
+        CountingResolution(String specification) {
+            this.specification = specification;
+        }
+
+        @Override
+        public SemanticVersion call() throws Exception {
+            count.incrementAndGet();
+            Thread.sleep(20L);
+            return SemanticVersion.is(specification);
+        }
+    }
+
+}
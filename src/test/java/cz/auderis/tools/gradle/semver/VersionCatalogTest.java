@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class VersionCatalogTest {
+
+    private VersionCatalog catalog;
+
+    @Before
+    public void prepareCatalog() throws Exception {
+        catalog = new VersionCatalog();
+        for (final String spec : Arrays.asList("0.9.0", "1.0.0-rc.1", "1.0.0", "1.0.1", "1.1.0-SNAPSHOT", "2.0.0",
+                "2.4.0", "2.4.1-SNAPSHOT", "2.4.1", "2.4.2-SNAPSHOT", "2.5.0", "3.0.0-beta", "3.0.0-SNAPSHOT")) {
+            catalog.add(SemanticVersion.is(spec));
+        }
+    }
+
+    @Test
+    @Parameters({
+            "2.4.1       | 2.4.1 | 2.4.1 | 2.4.2-SNAPSHOT | 2.4.1-SNAPSHOT",
+            "2.4.1-alpha | 2.4.1-SNAPSHOT | 2.4.1 | 2.4.1 | 2.4.1-SNAPSHOT",
+            "2.4.1-0     | 2.4.0 | 2.4.1-SNAPSHOT | 2.4.1-SNAPSHOT | 2.4.0",
+            "3.0.0       | 3.0.0-beta | null  | null     | 3.0.0-beta"
+    })
+    public void shouldNavigateVersions(String versionSpec, String floorSpec, String ceilingSpec, String higherSpec, String lowerSpec) throws Exception {
+        // Given
+        final SemanticVersion version = SemanticVersion.is(versionSpec);
+
+        // When / Then
+        assertThat(String.valueOf(catalog.floor(version)), is(floorSpec));
+        assertThat(String.valueOf(catalog.ceiling(version)), is(ceilingSpec));
+        assertThat(String.valueOf(catalog.higher(version)), is(higherSpec));
+        assertThat(String.valueOf(catalog.lower(version)), is(lowerSpec));
+    }
+
+    @Test
+    public void shouldFindLatestVersions() throws Exception {
+        // When / Then
+        assertThat(catalog.latest().toString(), is("3.0.0-beta"));
+        assertThat(catalog.latestStable().toString(), is("2.5.0"));
+        assertThat(catalog.latestSnapshot().toString(), is("3.0.0-SNAPSHOT"));
+        assertThat(new VersionCatalog().latestStable(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldFindLatestVersionsInRange() throws Exception {
+        // Given
+        final VersionRangeSet belowThree = VersionRangeSet.of("<3.0.0");
+        final VersionRangeSet gaps = VersionRangeSet.of("<1.0.0-0 || >2.0.0 <2.4.0 || >=2.4.1-SNAPSHOT <2.4.1");
+
+        // When / Then
+        assertThat(catalog.latestStableIn(belowThree).toString(), is("2.5.0"));
+        assertThat(catalog.latestIn(belowThree).toString(), is("3.0.0-beta"));
+        assertThat(catalog.latestIn(gaps).toString(), is("2.4.1-SNAPSHOT"));
+        assertThat(catalog.latestStableIn(gaps), is(nullValue()));
+        assertThat(catalog.latestIn(VersionRangeSet.of(">2.0.0 <2.4.0")), is(nullValue()));
+        assertThat(catalog.latestIn(VersionRangeSet.empty()), is(nullValue()));
+    }
+
+    @Test
+    public void shouldProvideBuckets() throws Exception {
+        // When
+        final VersionCatalog major2 = catalog.majorBucket(2);
+        final VersionCatalog minor24 = catalog.minorBucket(2, 4);
+
+        // Then
+        assertThat(major2.size(), is(6));
+        assertThat(major2.latestStable().toString(), is("2.5.0"));
+        assertThat(minor24.latestSnapshot().toString(), is("2.4.2-SNAPSHOT"));
+        assertThat(minor24.latestStable().toString(), is("2.4.1"));
+        assertThat(catalog.majorBucket(4).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReflectInsertsInBuckets() throws Exception {
+        // Given
+        final VersionCatalog minor24 = catalog.minorBucket(2, 4);
+
+        // When
+        catalog.add(SemanticVersion.is("2.4.7"));
+        minor24.add(SemanticVersion.is("2.4.8-SNAPSHOT"));
+
+        // Then
+        assertThat(minor24.latestStable().toString(), is("2.4.7"));
+        assertThat(catalog.latestSnapshot().toString(), is("3.0.0-SNAPSHOT"));
+        assertThat(catalog.majorBucket(2).latestSnapshot().toString(), is("2.4.8-SNAPSHOT"));
+        assertThat(catalog.contains(SemanticVersion.is("2.4.8-SNAPSHOT")), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInsertOutsideOfBucket() throws Exception {
+        // Given
+        final VersionCatalog minor24 = catalog.minorBucket(2, 4);
+
+        // When
+        minor24.add(SemanticVersion.is("2.5.1"));
+    }
+
+    @Test
+    public void shouldKeepFirstVersionOfSamePrecedence() throws Exception {
+        // When
+        final boolean added = catalog.add(SemanticVersion.is("2.0.0+build.5"));
+        final boolean removed = catalog.remove(SemanticVersion.is("2.5.0"));
+
+        // Then
+        assertThat(added, is(false));
+        assertThat(removed, is(true));
+        assertThat(catalog.floor(SemanticVersion.is("2.0.0")).toString(), is("2.0.0"));
+        assertThat(catalog.latestStable().toString(), is("2.4.1"));
+        final List<String> specs = new ArrayList<>();
+        for (final SemanticVersion version : catalog.majorBucket(1)) {
+            specs.add(version.toString());
+        }
+        assertThat(specs, is(Arrays.asList("1.0.0-rc.1", "1.0.0", "1.0.1", "1.1.0-SNAPSHOT")));
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.gradle.api.InvalidUserDataException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class VersionConstraintTest {
+
+    @Test
+    @Parameters(method = "satisfactionCases")
+    public void shouldEvaluateConstraint(String constraintSpec, String versionSpec, boolean expected) throws Exception {
+        // Given
+        final VersionConstraint constraint = VersionConstraint.parse(constraintSpec);
+        final SemanticVersion version = SemanticVersion.is(versionSpec);
+
+        // When
+        final boolean satisfied = constraint.isSatisfiedBy(version);
+
+        // Then
+        assertThat(satisfied, is(expected));
+    }
+
+    static Object[] satisfactionCases() {
+        return new Object[] {
+                // Primitive comparisons
+                new Object[] { ">=1.0.0 <2.0.0-0", "1.0.0", true },
+                new Object[] { ">=1.0.0 <2.0.0-0", "1.9.99", true },
+                new Object[] { ">=1.0.0 <2.0.0-0", "2.0.0", false },
+                new Object[] { ">=1.0.0 <2.0.0-0", "0.9.9", false },
+                new Object[] { ">= 1.2.3", "1.2.3+build.7", true },
+                new Object[] { ">1.2.3", "1.2.3", false },
+                new Object[] { ">1.2", "1.2.9", false },
+                new Object[] { ">1.2", "1.3.0", true },
+                new Object[] { "<1.2", "1.1.9", true },
+                new Object[] { "<1.2", "1.2.0", false },
+                new Object[] { "<=1.2", "1.2.9", true },
+                new Object[] { "<=1.2", "1.3.0", false },
+                new Object[] { "=1.2.3", "1.2.3", true },
+                new Object[] { "1.2.3", "1.2.4", false },
+                // X-ranges
+                new Object[] { "*", "0.0.1", true },
+                new Object[] { "", "7.0.0", true },
+                new Object[] { "1.x", "1.99.0", true },
+                new Object[] { "1.x", "2.0.0", false },
+                new Object[] { "1.2.*", "1.2.7", true },
+                new Object[] { "1.2", "1.3.0", false },
+                new Object[] { "1", "1.0.0", true },
+                // Tilde ranges
+                new Object[] { "~2.3.1", "2.3.9", true },
+                new Object[] { "~2.3.1", "2.3.0", false },
+                new Object[] { "~2.3.1", "2.4.0", false },
+                new Object[] { "~2", "2.9.0", true },
+                new Object[] { "~1.2.3-beta.2", "1.2.3-beta.4", true },
+                new Object[] { "~1.2.3-beta.2", "1.2.4-beta.4", false },
+                // Caret ranges
+                new Object[] { "^1.4", "1.4.0", true },
+                new Object[] { "^1.4", "1.99.1", true },
+                new Object[] { "^1.4", "1.3.9", false },
+                new Object[] { "^1.4", "2.0.0", false },
+                new Object[] { "^0.2.3", "0.2.9", true },
+                new Object[] { "^0.2.3", "0.3.0", false },
+                new Object[] { "^0.0.3", "0.0.3", true },
+                new Object[] { "^0.0.3", "0.0.4", false },
+                new Object[] { "^0.0", "0.0.9", true },
+                new Object[] { "^0.0", "0.1.0", false },
+                new Object[] { "^0.x", "0.9.0", true },
+                new Object[] { "^0.x", "1.0.0", false },
+                // Hyphen ranges
+                new Object[] { "1.2.3 - 2.3.4", "2.3.4", true },
+                new Object[] { "1.2.3 - 2.3.4", "2.3.5", false },
+                new Object[] { "1.2 - 2.3", "2.3.9", true },
+                new Object[] { "1.2 - 2.3", "1.1.9", false },
+                // Alternatives
+                new Object[] { "^1.4 || ~2.3.1", "2.3.5", true },
+                new Object[] { "^1.4 || ~2.3.1", "2.4.0", false },
+                new Object[] { "<1.0.0 || >=3.0.0", "3.1.0", true },
+                new Object[] { "<1.0.0 || >=3.0.0", "2.0.0", false },
+                // Pre-release versions match only ranges mentioning the same triple
+                new Object[] { ">=1.2.3-alpha <2.0.0", "1.2.3-beta.4", true },
+                new Object[] { ">=1.2.3-alpha <2.0.0", "1.4.0-beta", false },
+                new Object[] { "^1.2.3", "1.3.0-rc.1", false },
+                new Object[] { "*", "1.0.0-SNAPSHOT", false },
+                new Object[] { "<2.0.0-0", "2.0.0-alpha", false },
+                new Object[] { "1.0.0-SNAPSHOT", "1.0.0-SNAPSHOT", true },
+                // Unsatisfiable ranges
+                new Object[] { ">2.0.0 <1.0.0", "1.5.0", false },
+                new Object[] { "<*", "0.0.0", false },
+                new Object[] { ">2147483647", "2147483647.2147483647.2147483647", false },
+                new Object[] { "^2147483647.1", "2147483647.9.0", true },
+        };
+    }
+
+    @Test
+    public void shouldRecognizeUnsatisfiableConstraint() throws Exception {
+        assertThat(VersionConstraint.parse(">=2.0.0 <1.0.0 || >* || <1.0.0 >1.0.0").isEmpty(), is(true));
+        assertThat(VersionConstraint.parse(">=1.0.0 <=1.0.0").isEmpty(), is(false));
+    }
+
+    @Test(expected = InvalidUserDataException.class)
+    @Parameters({
+            "1.2.3.4",
+            "01.2",
+            ">=",
+            "~1.2.3-",
+            "1.2.3 - ",
+            "^abc"
+    })
+    public void shouldDeclineInvalidConstraint(String constraintSpec) throws Exception {
+        VersionConstraint.parse(constraintSpec);
+    }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.IntegrationTest;
+import cz.auderis.test.rule.WorkFolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@Category(IntegrationTest.class)
+public class VersionFileWatcherTest {
+
+    @Rule
+    public WorkFolder folder = WorkFolder.basic();
+
+    private Path versionFile;
+    private VersionFileWatcher watcher;
+
+    @Before
+    public void createVersionFile() throws Exception {
+        versionFile = folder.newFile("version.txt", new ByteArrayInputStream("1.0.0".getBytes(StandardCharsets.UTF_8))).toPath();
+    }
+
+    @After
+    public void closeWatcher() throws Exception {
+        if (null != watcher) {
+            watcher.close();
+        }
+    }
+
+    @Test
+    public void shouldKeepVersionWithoutChanges() throws Exception {
+        // Given
+        watcher = new VersionFileWatcher(versionFile, 50L);
+
+        // When
+        final SemanticVersion first = watcher.getVersion();
+        final SemanticVersion second = watcher.getVersion();
+
+        // Then
+        assertThat(first, is(SemanticVersion.is("1.0.0")));
+        assertThat(second, is(sameInstance(first)));
+        assertThat(watcher.getLoadCount(), is(1));
+    }
+
+    @Test
+    public void shouldReloadChangedFileAndNotifyListener() throws Exception {
+        // Given
+        watcher = new VersionFileWatcher(versionFile, 50L);
+        watcher.getVersion();
+        final RecordingListener listener = new RecordingListener(1);
+        watcher.addListener(listener);
+
+        // When
+        write("# edited\n1.1.0-rc.1");
+        final boolean notified = listener.await();
+
+        // Then
+        assertThat(notified, is(true));
+        assertThat(listener.previous.get(0), is(SemanticVersion.is("1.0.0")));
+        assertThat(listener.current.get(0), is(SemanticVersion.is("1.1.0-rc.1")));
+        assertThat(watcher.getVersion(), is(SemanticVersion.is("1.1.0-rc.1")));
+        assertThat(watcher.getLoadCount(), is(2));
+    }
+
+    @Test
+    public void shouldKeepLastGoodVersionWhenReloadFails() throws Exception {
+        // Given
+        watcher = new VersionFileWatcher(versionFile, 50L);
+        watcher.getVersion();
+        final RecordingListener listener = new RecordingListener(1);
+        watcher.addListener(listener);
+
+        // When
+        write("not a version");
+        Thread.sleep(1000L);
+        final SemanticVersion afterFailure = watcher.getVersion();
+        write("1.2.0");
+        final boolean notified = listener.await();
+
+        // Then
+        assertThat(afterFailure, is(SemanticVersion.is("1.0.0")));
+        assertThat(notified, is(true));
+        assertThat(listener.previous.get(0), is(SemanticVersion.is("1.0.0")));
+        assertThat(listener.current.get(0), is(SemanticVersion.is("1.2.0")));
+    }
+
+    @Test
+    public void shouldDebounceBurstOfChanges() throws Exception {
+        // Given
+        watcher = new VersionFileWatcher(versionFile, 500L);
+        watcher.getVersion();
+        final RecordingListener listener = new RecordingListener(1);
+        watcher.addListener(listener);
+
+        // When
+        for (int i = 1; i <= 5; ++i) {
+            write("1.0." + i);
+        }
+        final boolean notified = listener.await();
+        Thread.sleep(1000L);
+
+        // Then
+        assertThat(notified, is(true));
+        assertThat(listener.current.size(), is(1));
+        assertThat(listener.current.get(0), is(SemanticVersion.is("1.0.5")));
+        assertThat(watcher.getLoadCount(), is(2));
+    }
+
+    @Test
+    public void shouldIgnoreChangesOfOtherFiles() throws Exception {
+        // Given
+        watcher = new VersionFileWatcher(versionFile, 50L);
+        watcher.getVersion();
+        final RecordingListener listener = new RecordingListener(1);
+        watcher.addListener(listener);
+
+        // When
+        Files.write(versionFile.resolveSibling("other.txt"), "2.0.0".getBytes(StandardCharsets.UTF_8));
+        final boolean notified = listener.await(1000L);
+
+        // Then
+        assertThat(notified, is(false));
+        assertThat(watcher.getLoadCount(), is(1));
+    }
+
+    @Test
+    public void shouldShareWatcherOfSameFile() throws Exception {
+        // Given
+        watcher = VersionFileWatcher.watch(versionFile);
+
+        // When
+        final VersionFileWatcher other = VersionFileWatcher.watch(versionFile.getParent().resolve("./version.txt"));
+        watcher.close();
+        final VersionFileWatcher replacement = VersionFileWatcher.watch(versionFile);
+
+        // Then
+        assertThat(other, is(sameInstance(watcher)));
+        assertThat(replacement, is(not(sameInstance(watcher))));
+        replacement.close();
+    }
+
+    private void write(String contents) throws IOException {
+        Files.write(versionFile, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static final class RecordingListener implements VersionFileWatcher.Listener {
+        final List<SemanticVersion> previous = new CopyOnWriteArrayList<>();
+        final List<SemanticVersion> current = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch;
+
+        RecordingListener(int expectedCount) {
+            latch = new CountDownLatch(expectedCount);
+        }
+
+        @Override
+        public void versionChanged(SemanticVersion previousVersion, SemanticVersion currentVersion) {
+            previous.add(previousVersion);
+            current.add(currentVersion);
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return await(10000L);
+        }
+
+        boolean await(long timeoutMillis) throws InterruptedException {
+            return latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static cz.auderis.tools.gradle.semver.SerializationTestSupport.serializedCopy;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@Category(UnitTest.class)
+public class VersionOverrideSourceTest {
+
+    @Test
+    public void shouldCaptureStartParameterValue() throws Exception {
+        // Given
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("versionOverride", "7.0.0-hotfix.1");
+
+        // When
+        final StartParameterVersionOverride override = new StartParameterVersionOverride(properties, "versionOverride");
+        properties.clear();
+
+        // Then
+        assertThat(override.isActive(), is(true));
+        assertThat(override.getVersionSpecification(), is("7.0.0-hotfix.1"));
+    }
+
+    @Test
+    public void shouldRecognizeMissingStartParameter() throws Exception {
+        // Given
+        final Map<String, String> properties = new HashMap<>();
+
+        // When
+        final StartParameterVersionOverride override = new StartParameterVersionOverride(properties, "versionOverride");
+
+        // Then
+        assertThat(override.isActive(), is(false));
+        assertThat(override.getVersionSpecification(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSerializeOverrideSources() throws Exception {
+        // Given
+        final Map<String, String> properties = new HashMap<>();
+        properties.put("releaseVersion", "3.0.0");
+        final StartParameterVersionOverride paramOverride = new StartParameterVersionOverride(properties, "releaseVersion");
+        final EnvironmentVersionOverride envOverride = new EnvironmentVersionOverride("SEMANTIC_VERSION_TEST_UNDEFINED");
+
+        // When
+        final VersionOverrideSource restoredParam = (VersionOverrideSource) serializedCopy(paramOverride);
+        final VersionOverrideSource restoredEnv = (VersionOverrideSource) serializedCopy(envOverride);
+
+        // Then
+        assertThat(restoredParam.getName(), is(paramOverride.getName()));
+        assertThat(restoredParam.getVersionSpecification(), is("3.0.0"));
+        assertThat(restoredEnv.getName(), is(envOverride.getName()));
+        assertThat(restoredEnv.isActive(), is(false));
+    }
+
+}
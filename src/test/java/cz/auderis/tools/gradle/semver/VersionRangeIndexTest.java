@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@Category(UnitTest.class)
+public class VersionRangeIndexTest {
+
+    private Map<String, VersionConstraint> constraints;
+
+    @Before
+    public void prepareConstraints() throws Exception {
+        constraints = new LinkedHashMap<>();
+        constraints.put(":core", VersionConstraint.parse("^1.2"));
+        constraints.put(":web", VersionConstraint.parse(">=1.4.0 <3.0.0"));
+        constraints.put(":legacy", VersionConstraint.parse("~1.1.0"));
+        constraints.put(":beta", VersionConstraint.parse(">=2.0.0-beta <2.1.0"));
+    }
+
+    @Test
+    public void shouldFindSatisfiedConstraints() throws Exception {
+        // Given
+        final VersionRangeIndex<String> index = VersionRangeIndex.of(constraints);
+
+        // When / Then
+        assertThat(index.satisfiedBy(SemanticVersion.is("1.5.0")), is(Arrays.asList(":core", ":web")));
+        assertThat(index.satisfiedBy(SemanticVersion.is("1.1.7")), is(Collections.singletonList(":legacy")));
+        assertThat(index.satisfiedBy(SemanticVersion.is("2.0.5")), is(Arrays.asList(":web", ":beta")));
+        assertThat(index.satisfiedBy(SemanticVersion.is("2.0.0-rc.1")), is(Collections.singletonList(":beta")));
+        assertThat(index.satisfiedBy(SemanticVersion.is("3.0.0")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldFindConflicts() throws Exception {
+        // Given
+        final VersionRangeIndex<String> index = VersionRangeIndex.of(constraints);
+
+        // When / Then
+        assertThat(index.isConsistent(), is(false));
+        assertThat(index.conflictsWith(":legacy"), is(Arrays.asList(":core", ":web", ":beta")));
+        assertThat(index.conflictsWith(":core"), is(Arrays.asList(":legacy", ":beta")));
+    }
+
+    @Test
+    public void shouldComputeCommonRange() throws Exception {
+        // Given
+        constraints.remove(":legacy");
+        constraints.remove(":beta");
+        final VersionRangeIndex<String> index = VersionRangeIndex.of(constraints);
+
+        // When
+        final VersionRangeSet commonRange = index.getCommonRange();
+
+        // Then
+        assertThat(index.isConsistent(), is(true));
+        assertThat(commonRange.toString(), is(">=1.4.0 <2.0.0-0"));
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class VersionRangeSetTest {
+
+    @Test
+    public void shouldMergeOverlappingAndAdjacentIntervals() throws Exception {
+        // Given
+        final VersionRangeSet first = VersionRangeSet.of(">=1.0.0 <2.0.0");
+        final VersionRangeSet second = VersionRangeSet.of(">=1.5.0 <=3.0.0 || >=2.0.0 <2.1.0");
+
+        // When
+        final VersionRangeSet union = first.union(second);
+
+        // Then
+        assertThat(union.getIntervalCount(), is(1));
+        assertThat(union.toString(), is(">=1.0.0 <=3.0.0"));
+    }
+
+    @Test
+    public void shouldIntersectSets() throws Exception {
+        // Given
+        final VersionRangeSet first = VersionRangeSet.of("^1.2 || ^3.0");
+        final VersionRangeSet second = VersionRangeSet.of(">1.5.0 <3.1.0");
+
+        // When
+        final VersionRangeSet intersection = first.intersect(second);
+
+        // Then
+        assertThat(intersection.toString(), is(">1.5.0 <2.0.0-0 || >=3.0.0 <3.1.0"));
+        assertThat(intersection.contains(SemanticVersion.is("1.5.0")), is(false));
+        assertThat(intersection.contains(SemanticVersion.is("1.5.1")), is(true));
+        assertThat(intersection.contains(SemanticVersion.is("2.5.0")), is(false));
+        assertThat(intersection.contains(SemanticVersion.is("3.0.9")), is(true));
+    }
+
+    @Test
+    public void shouldComplementSet() throws Exception {
+        // Given
+        final VersionRangeSet set = VersionRangeSet.of("<1.0.0 || 2.x");
+
+        // When
+        final VersionRangeSet complement = set.complement();
+
+        // Then
+        assertThat(complement.toString(), is(">=1.0.0 <2.0.0 || >=3.0.0-0"));
+        assertThat(complement.complement(), is(set));
+        assertThat(set.union(complement).isAll(), is(true));
+        assertThat(set.intersect(complement).isEmpty(), is(true));
+        assertThat(VersionRangeSet.all().complement().isEmpty(), is(true));
+    }
+
+    @Test
+    @Parameters({
+            "2.0.0         | true",
+            "2.0.0+build.7 | true",
+            "2.0.0-rc.1    | true",
+            "2.0.1         | false",
+            "1.9.9         | false"
+    })
+    public void shouldContainSingleVersion(String versionSpec, boolean expected) throws Exception {
+        // Given
+        final VersionRangeSet set = VersionRangeSet.interval(SemanticVersion.is("2.0.0-alpha"), true, SemanticVersion.is("2.0.0"), true);
+
+        // When
+        final boolean contained = set.contains(SemanticVersion.is(versionSpec));
+
+        // Then
+        assertThat(contained, is(expected));
+    }
+
+    @Test
+    public void shouldAgreeWithMembershipOfOperands() throws Exception {
+        final Random random = new Random(2017L);
+        for (int round = 0; round < 200; ++round) {
+            // Given
+            final VersionRangeSet first = randomSet(random);
+            final VersionRangeSet second = randomSet(random);
+
+            // When
+            final VersionRangeSet union = first.union(second);
+            final VersionRangeSet intersection = first.intersect(second);
+            final VersionRangeSet complement = first.complement();
+
+            // Then
+            for (int i = 0; i < 50; ++i) {
+                final SemanticVersion version = randomVersion(random);
+                final boolean in1 = first.contains(version);
+                final boolean in2 = second.contains(version);
+                assertThat(union.contains(version), is(in1 || in2));
+                assertThat(intersection.contains(version), is(in1 && in2));
+                assertThat(complement.contains(version), is(!in1));
+            }
+        }
+    }
+
+    private static VersionRangeSet randomSet(Random random) {
+        VersionRangeSet result = VersionRangeSet.empty();
+        final int intervals = random.nextInt(4);
+        for (int i = 0; i < intervals; ++i) {
+            final SemanticVersion lower = random.nextBoolean() ? randomVersion(random) : null;
+            final SemanticVersion upper = random.nextBoolean() ? randomVersion(random) : null;
+            result = result.union(VersionRangeSet.interval(lower, random.nextBoolean(), upper, random.nextBoolean()));
+        }
+        return result;
+    }
+
+    private static SemanticVersion randomVersion(Random random) {
+        final SemanticVersion version = SemanticVersion.builder(random.nextInt(3), random.nextInt(3), random.nextInt(3)).build();
+        return random.nextBoolean() ? version : version.withPreReleaseIdentifier(random.nextBoolean() ? "alpha" : "1");
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.IntegrationTest;
+import cz.auderis.test.category.UnitTest;
+import cz.auderis.test.rule.WorkFolder;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class VersionScannerTest {
+
+    @Rule
+    public WorkFolder folder = WorkFolder.basic();
+
+    @Test
+    @Parameters(method = "occurrenceCases")
+    public void shouldFindVersionsInText(String text, List<String> expectedVersions) throws Exception {
+        // Given
+        final VersionScanner scanner = SemanticVersion.scan(new StringReader(text));
+
+        // When
+        final List<String> versions = new ArrayList<>();
+        while (scanner.hasNext()) {
+            versions.add(scanner.next().getVersion().toString());
+        }
+
+        // Then
+        assertThat(versions, is(expectedVersions));
+    }
+
+    public static Object[] occurrenceCases() {
+        return new Object[] {
+                new Object[] { "Released 1.2.3.", Arrays.asList("1.2.3") },
+                new Object[] { "tags: v1.0.0, v1.1.0-beta.2 and (2.0.0+sha.5114f85)", Arrays.asList("1.0.0", "1.1.0-beta.2", "2.0.0+sha.5114f85") },
+                new Object[] { "lib-3.4.5.jar lib-3.4.6-SNAPSHOT.jar", Arrays.asList("3.4.5", "3.4.6-SNAPSHOT") },
+                new Object[] { "app-2.0.0+b.7.zip app-2.0.0-rc.1.TAR 1.0.0-alpha.beta", Arrays.asList("2.0.0+b.7", "2.0.0-rc.1", "1.0.0-alpha.beta") },
+                new Object[] { "range 1.0.0-2.0.0 or 1.0.0 - 2.0.0", Arrays.asList("1.0.0", "2.0.0", "1.0.0", "2.0.0") },
+                new Object[] { "1.0.0-2.0.0-rc.1 1.0.0-1.2.x", Arrays.asList("1.0.0", "2.0.0-rc.1", "1.0.0-1.2.x") },
+                new Object[] { "1.2.3.4 1.2 01.2.3 1.2.3a 11.2.3-rc.01", Arrays.<String>asList() },
+                new Object[] { "1.2.3-rc- 1.2.3--x 4.5.6+ 7.8.9-alpha.", Arrays.asList("1.2.3-rc-", "1.2.3", "4.5.6", "7.8.9-alpha") },
+                new Object[] { "x12.0.0 .1.2.3 0.0.0", Arrays.asList("12.0.0", "0.0.0") },
+        };
+    }
+
+    @Test
+    public void shouldReportOffsetsAndLines() throws Exception {
+        // Given
+        final String text = "first 1.0.0\nsecond: v2.0.0-rc.1+b7\n\n3.0.0";
+        final VersionScanner scanner = SemanticVersion.scan(new StringReader(text));
+
+        // When
+        final List<VersionScanner.Match> matches = new ArrayList<>();
+        while (scanner.hasNext()) {
+            matches.add(scanner.next());
+        }
+
+        // Then
+        assertThat(matches.size(), is(3));
+        for (final VersionScanner.Match match : matches) {
+            final String occurrence = text.substring((int) match.getStartOffset(), (int) match.getEndOffset());
+            assertThat(occurrence, is(match.getVersion().toString()));
+        }
+        assertThat(matches.get(0).getLine(), is(1L));
+        assertThat(matches.get(1).getLine(), is(2L));
+        assertThat(matches.get(2).getLine(), is(4L));
+    }
+
+    @Test
+    public void shouldScanTextLargerThanBuffer() throws Exception {
+        // Given
+        final StringBuilder text = new StringBuilder();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; ++i) {
+            final String version = "1." + i + ".0-build." + (i * 7);
+            expected.add(version);
+            text.append("entry ").append(i).append(": ").append(version).append(i % 3 == 0 ? '\n' : ' ');
+        }
+        final char[] longWord = new char[VersionScanner.MAX_WORD_LENGTH + 10];
+        Arrays.fill(longWord, '1');
+        text.append(longWord).append(".0.0 9.9.9");
+        expected.add("9.9.9");
+
+        // When
+        final List<String> versions = new ArrayList<>();
+        final VersionScanner scanner = SemanticVersion.scan(new StringReader(text.toString()));
+        while (scanner.hasNext()) {
+            final VersionScanner.Match match = scanner.next();
+            assertThat(text.substring((int) match.getStartOffset(), (int) match.getEndOffset()), is(match.getVersion().toString()));
+            versions.add(match.getVersion().toString());
+        }
+
+        // Then
+        assertThat(versions, is(expected));
+    }
+
+    @Test
+    @Category(IntegrationTest.class)
+    public void shouldScanFile() throws Exception {
+        // Given
+        final File changelog = folder.newResourceCopy("changelog.md", "spec/changelog.md");
+
+        // When
+        final List<String> versions = new ArrayList<>();
+        try (final VersionScanner scanner = SemanticVersion.scan(changelog.toPath())) {
+            while (scanner.hasNext()) {
+                versions.add(scanner.next().getVersion().toString());
+            }
+        }
+
+        // Then
+        assertThat(versions, is(Arrays.asList("2.1.0-rc.1", "3.5.1", "3.5.0", "2.0.0", "2.0.0", "1.9.7+build.42")));
+    }
+
+    @Test
+    public void shouldCloseReaderAtEndOfInput() throws Exception {
+        // Given
+        final boolean[] closed = new boolean[1];
+        final Reader reader = new StringReader("1.0.0") {
+            @Override
+            public void close() {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        final VersionScanner scanner = SemanticVersion.scan(reader);
+
+        // When
+        scanner.next();
+        final boolean more = scanner.hasNext();
+
+        // Then
+        assertThat(more, is(false));
+        assertThat(closed[0], is(true));
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import com.sun.net.httpserver.HttpServer;
+import cz.auderis.test.category.IntegrationTest;
+import cz.auderis.test.rule.WorkFolder;
+import org.gradle.api.InvalidUserDataException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+@Category(IntegrationTest.class)
+public class VersionSourceResolverTest {
+
+    @Rule
+    public WorkFolder folder = WorkFolder.basic();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private VersionUrlLoaderTest.VersionHandler primary;
+    private VersionUrlLoaderTest.VersionHandler mirror;
+    private URL primaryUrl;
+    private URL mirrorUrl;
+    private File versionFile;
+
+    @Before
+    public void startServer() throws Exception {
+        primary = new VersionUrlLoaderTest.VersionHandler();
+        mirror = new VersionUrlLoaderTest.VersionHandler();
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/primary", primary);
+        server.createContext("/mirror", mirror);
+        server.setExecutor(executor);
+        server.start();
+        primaryUrl = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/primary");
+        mirrorUrl = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/mirror");
+        versionFile = folder.newFile("local.version", new ByteArrayInputStream("1.0.0-local".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldPreferPrimarySourceCompletedWithinHedgeDelay() throws Exception {
+        // Given
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED, 2000L);
+        primary.contents = "2.0.0";
+        primary.delay = 200L;
+
+        // When
+        final SemanticVersion version = resolver.resolve(primaryUrl, versionFile);
+
+        // Then
+        assertThat(version, is(SemanticVersion.is("2.0.0")));
+    }
+
+    @Test
+    public void shouldHedgeSlowPrimarySource() throws Exception {
+        // Given
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED, 100L);
+        primary.contents = "2.0.0";
+        primary.delay = 5000L;
+        mirror.contents = "2.0.1";
+
+        // When
+        final long start = System.nanoTime();
+        final SemanticVersion version = resolver.resolve(primaryUrl, mirrorUrl, versionFile);
+        final long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+
+        // Then
+        assertThat(version, is(SemanticVersion.is("2.0.1")));
+        assertThat(elapsedMillis, lessThan(3000L));
+        assertThat(mirror.requests.get(), is(1));
+    }
+
+    @Test
+    public void shouldFallBackWhenPrimarySourceFails() throws Exception {
+        // Given
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED, 5000L);
+        primary.status = 404;
+
+        // When
+        final long start = System.nanoTime();
+        final SemanticVersion version = resolver.resolve(primaryUrl, versionFile.toPath());
+        final long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+
+        // Then
+        assertThat(version, is(SemanticVersion.is("1.0.0-local")));
+        assertThat(elapsedMillis, lessThan(3000L));
+    }
+
+    @Test
+    public void shouldLoadClasspathResource() throws Exception {
+        // Given
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED, 100L);
+        primary.status = 503;
+
+        // When
+        final SemanticVersion version = resolver.resolve(primaryUrl, "classpath:cz/auderis/tools/gradle/semver/spec/basic.version");
+
+        // Then
+        assertThat(version, is(SemanticVersion.is("2.4.6-SNAPSHOT+Build-4843")));
+    }
+
+    @Test
+    public void shouldLoadClasspathResourceFromCallerContextClassLoader() throws Exception {
+        // Given
+        final File resourceDir = folder.newFolder("resources");
+        folder.newFile("resources/build.version", new ByteArrayInputStream("5.1.0-ctx".getBytes(StandardCharsets.UTF_8)));
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED, 100L);
+        primary.status = 503;
+        final Thread thread = Thread.currentThread();
+        final ClassLoader originalClassLoader = thread.getContextClassLoader();
+
+        // When
+        final SemanticVersion version;
+        try (final URLClassLoader buildClassLoader = new URLClassLoader(new URL[] { resourceDir.toURI().toURL() }, null)) {
+            thread.setContextClassLoader(buildClassLoader);
+            version = resolver.resolve(primaryUrl, "classpath:build.version");
+        } finally {
+            thread.setContextClassLoader(originalClassLoader);
+        }
+
+        // Then
+        assertThat(version, is(SemanticVersion.is("5.1.0-ctx")));
+    }
+
+    @Test
+    public void shouldUseFilePathAsLastResort() throws Exception {
+        // Given
+        primary.status = 503;
+        mirror.status = 500;
+
+        // When
+        final SemanticVersion version = SemanticVersion.from(primaryUrl, mirrorUrl, versionFile.getPath());
+
+        // Then
+        assertThat(version, is(SemanticVersion.is("1.0.0-local")));
+    }
+
+    @Test(expected = InvalidUserDataException.class)
+    public void shouldFailWhenNoSourceIsValid() throws Exception {
+        // Given
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED, 100L);
+        primary.status = 503;
+        mirror.contents = "not a version";
+
+        // When
+        resolver.resolve(primaryUrl, mirrorUrl, new File(folder.getRoot(), "missing.version"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnsupportedSource() throws Exception {
+        // Given
+        final VersionSourceResolver resolver = new VersionSourceResolver(VersionUrlLoader.UNCACHED, 100L);
+
+        // When
+        resolver.resolve(primaryUrl, Integer.valueOf(42));
+    }
+
+}
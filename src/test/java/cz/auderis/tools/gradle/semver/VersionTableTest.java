@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import cz.auderis.test.category.UnitTest;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.gradle.api.InvalidUserDataException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+@Category(UnitTest.class)
+public class VersionTableTest {
+
+    @Test
+    @Parameters({
+            "1.2.3                  | 1 | 2 | 3 |              |          | false | false",
+            "0.9.0                  | 0 | 9 | 0 |              |          | true  | false",
+            "  2.0.0-rc.1+build.7   | 2 | 0 | 0 | rc.1         | build.7  | true  | false",
+            "3.1.4-alpha.SNAPSHOT   | 3 | 1 | 4 | alpha.SNAPSHOT |        | true  | true",
+            "10.20.30+exp.sha.5114f | 10 | 20 | 30 |           | exp.sha.5114f | false | false"
+    })
+    public void shouldStoreParsedSpecification(String spec, int major, int minor, int patch, String preRelease,
+                                               String buildMetadata, boolean expectedPreRelease, boolean expectedSnapshot) throws Exception {
+        // Given
+        final VersionTable table = new VersionTable();
+
+        // When
+        final int row = table.add(spec);
+
+        // Then
+        assertThat(table.getMajor(row), is(major));
+        assertThat(table.getMinor(row), is(minor));
+        assertThat(table.getPatch(row), is(patch));
+        assertThat(table.getPreRelease(row), is(preRelease));
+        assertThat(table.getBuildMetadata(row), is(buildMetadata));
+        assertThat(table.isPreRelease(row), is(expectedPreRelease));
+        assertThat(table.isSnapshot(row), is(expectedSnapshot));
+        assertThat(table.get(row), is(SemanticVersion.is(spec.trim())));
+        assertThat(table.toString(row), is(spec.trim()));
+    }
+
+    @Test(expected = InvalidUserDataException.class)
+    @Parameters({
+            "1.2",
+            "1.02.3",
+            "1.2.3-",
+            "1.2.3+b..1"
+    })
+    public void shouldRejectInvalidSpecification(String spec) throws Exception {
+        // Given
+        final VersionTable table = new VersionTable();
+
+        // When
+        table.add(spec);
+    }
+
+    @Test
+    public void shouldMatchObjectQueries() throws Exception {
+        // Given
+        final Random random = new Random(42L);
+        final List<SemanticVersion> versions = randomVersions(random, 5000);
+        final VersionTable table = new VersionTable(16);
+        int stable = 0;
+        int snapshots = 0;
+        for (final SemanticVersion version : versions) {
+            if (random.nextBoolean()) {
+                table.add(version);
+            } else {
+                table.add(version.toString());
+            }
+            stable += version.isStable() ? 1 : 0;
+            snapshots += version.isSnapshot() ? 1 : 0;
+        }
+
+        // When
+        final int stableCount = table.countStable();
+        final int snapshotCount = table.countSnapshots();
+        final SortedMap<Integer, Integer> histogram = table.getMajorHistogram();
+
+        // Then
+        assertThat(table.size(), is(versions.size()));
+        assertThat(stableCount, is(stable));
+        assertThat(snapshotCount, is(snapshots));
+        int total = 0;
+        for (final int count : histogram.values()) {
+            total += count;
+        }
+        assertThat(total, is(versions.size()));
+        assertThat(histogram.firstKey(), is(0));
+        assertThat(histogram.lastKey(), is(4));
+    }
+
+    @Test
+    public void shouldComputeSparseHistogram() throws Exception {
+        // Given
+        final VersionTable table = new VersionTable();
+        table.add("20170101.0.0");
+        table.add("1.0.0");
+        table.add("20170101.1.0");
+        table.add("20160301.0.0");
+
+        // When
+        final SortedMap<Integer, Integer> histogram = table.getMajorHistogram();
+
+        // Then
+        assertThat(histogram.toString(), is("{1=1, 20160301=1, 20170101=2}"));
+    }
+
+    @Test
+    public void shouldSortRowsByPrecedence() throws Exception {
+        for (final int size : new int[] { 0, 1, 20, 3000 }) {
+            // Given
+            final Random random = new Random(size);
+            final List<SemanticVersion> versions = randomVersions(random, size);
+            final VersionTable table = new VersionTable();
+            for (final SemanticVersion version : versions) {
+                table.add(version);
+            }
+
+            // When
+            final int[] order = table.sortedOrder();
+
+            // Then
+            final List<SemanticVersion> expected = new ArrayList<>(versions);
+            Collections.sort(expected);
+            assertThat(order.length, is(size));
+            for (int i = 0; i < size; ++i) {
+                assertThat(table.get(order[i]).compareTo(expected.get(i)), is(0));
+                if ((i > 0) && (0 == table.compareRows(order[i - 1], order[i]))) {
+                    // Sort is stable
+                    assertThat(order[i - 1] < order[i], is(true));
+                }
+            }
+        }
+    }
+
+    private static List<SemanticVersion> randomVersions(Random random, int count) {
+        final String[] ids = { "alpha", "beta", "1", "2", "10", "SNAPSHOT", "rc" };
+        final List<SemanticVersion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            SemanticVersion version = SemanticVersion.builder(random.nextInt(5), random.nextInt(4), random.nextInt(300)).build();
+            final int idCount = random.nextInt(4) - 1;
+            for (int j = 0; j < idCount; ++j) {
+                version = version.withPreReleaseIdentifier(ids[random.nextInt(ids.length)]);
+            }
+            if (random.nextInt(4) == 0) {
+                version = version.withBuildMetadataIdentifier("b" + random.nextInt(100));
+            }
+            result.add(version);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Boleslav Bobcik - Auderis
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cz.auderis.tools.gradle.semver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import cz.auderis.test.category.IntegrationTest;
+import cz.auderis.test.rule.WorkFolder;
+import org.gradle.api.InvalidUserDataException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@Category(IntegrationTest.class)
+public class VersionUrlLoaderTest {
+
+    @Rule
+    public WorkFolder folder = WorkFolder.basic();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private VersionHandler handler;
+    private URL versionUrl;
+    private File cacheDir;
+
+    @Before
+    public void startServer() throws Exception {
+        handler = new VersionHandler();
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/version", handler);
+        server.setExecutor(executor);
+        server.start();
+        versionUrl = new URL("http", "127.0.0.1", server.getAddress().getPort(), "/version");
+        cacheDir = folder.newFolder("cache");
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        if (null != server) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRevalidateCachedVersion() throws Exception {
+        // Given
+        final VersionUrlLoader loader = new VersionUrlLoader(cacheDir);
+        handler.contents = "1.4.2-rc.1";
+
+        // When
+        final SemanticVersion first = loader.load(versionUrl);
+        final SemanticVersion second = loader.load(versionUrl);
+
+        // Then
+        assertThat(first, is(SemanticVersion.is("1.4.2-rc.1")));
+        assertThat(second, is(first));
+        assertThat(handler.requests.get(), is(2));
+        assertThat(handler.notModified.get(), is(1));
+    }
+
+    @Test
+    public void shouldLoadChangedVersion() throws Exception {
+        // Given
+        final VersionUrlLoader loader = new VersionUrlLoader(cacheDir);
+        handler.contents = "1.0.0";
+        loader.load(versionUrl);
+
+        // When
+        handler.contents = "# next release\n1.1.0";
+        final SemanticVersion changed = loader.load(versionUrl);
+
+        // Then
+        assertThat(changed, is(SemanticVersion.is("1.1.0")));
+        assertThat(handler.notModified.get(), is(0));
+    }
+
+    @Test
+    public void shouldUseFreshVersionWithoutRequest() throws Exception {
+        // Given
+        final VersionUrlLoader loader = new VersionUrlLoader(cacheDir);
+        loader.setMaxAge(3600L);
+        handler.contents = "2.0.0";
+        loader.load(versionUrl);
+
+        // When
+        final VersionUrlLoader otherLoader = new VersionUrlLoader(cacheDir);
+        otherLoader.setMaxAge(3600L);
+        final SemanticVersion cached = otherLoader.load(versionUrl);
+        final SemanticVersion fresh = loader.load(versionUrl);
+
+        // Then
+        assertThat(fresh, is(SemanticVersion.is("2.0.0")));
+        assertThat(cached, is(fresh));
+        assertThat(handler.requests.get(), is(1));
+    }
+
+    @Test
+    public void shouldFallBackToCachedVersionWhenServerIsDown() throws Exception {
+        // Given
+        final VersionUrlLoader loader = new VersionUrlLoader(cacheDir);
+        handler.contents = "3.2.1";
+        loader.load(versionUrl);
+        server.stop(0);
+        server = null;
+
+        // When
+        final SemanticVersion fallback = loader.load(versionUrl);
+
+        // Then
+        assertThat(fallback, is(SemanticVersion.is("3.2.1")));
+    }
+
+    @Test
+    public void shouldUseCachedVersionOffline() throws Exception {
+        // Given
+        final VersionUrlLoader loader = new VersionUrlLoader(cacheDir);
+        handler.contents = "3.2.1";
+        loader.load(versionUrl);
+        loader.setOffline(true);
+
+        // When
+        final SemanticVersion offline = loader.load(versionUrl);
+
+        // Then
+        assertThat(offline, is(SemanticVersion.is("3.2.1")));
+        assertThat(handler.requests.get(), is(1));
+    }
+
+    @Test(expected = InvalidUserDataException.class)
+    public void shouldFailOnServerErrorWithoutFallback() throws Exception {
+        // Given
+        final VersionUrlLoader loader = new VersionUrlLoader(cacheDir);
+        handler.contents = "3.2.1";
+        loader.load(versionUrl);
+        loader.setOfflineFallback(false);
+        handler.status = 503;
+
+        // When
+        loader.load(versionUrl);
+    }
+
+    @Test(expected = InvalidUserDataException.class)
+    public void shouldTimeOutSlowServer() throws Exception {
+        // Given
+        final VersionUrlLoader loader = new VersionUrlLoader(null);
+        loader.setReadTimeout(200);
+        handler.contents = "1.0.0";
+        handler.delay = 5000L;
+
+        // When
+        loader.load(versionUrl);
+    }
+
+    static final class VersionHandler implements HttpHandler {
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger notModified = new AtomicInteger();
+        volatile String contents;
+        volatile int status = 200;
+        volatile long delay;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            requests.incrementAndGet();
+            try {
+                if (0L != delay) {
+                    Thread.sleep(delay);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (200 != status) {
+                exchange.sendResponseHeaders(status, -1L);
+                exchange.close();
+                return;
+            }
+            final String etag = "\"" + Integer.toHexString(contents.hashCode()) + "\"";
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1L);
+                exchange.close();
+                return;
+            }
+            final byte[] body = contents.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(200, body.length);
+            try (final OutputStream stream = exchange.getResponseBody()) {
+                stream.write(body);
+            }
+        }
+    }
+
+}